@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class BenchmarkDatabase {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+    private BenchmarkDatabase() {
+    }
+
+    public static JdbcTemplate create(int users, int films, int likesPerUser, int friendsPerUser) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:bench" + DATABASE_COUNTER.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        initSchema(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Random random = new Random(42);
+        seedUsers(jdbcTemplate, users);
+        seedFilms(jdbcTemplate, films, random);
+        seedPairs(jdbcTemplate, "INSERT INTO likes (user_id, film_id) VALUES (?, ?)", users, films, likesPerUser, false, random);
+        seedPairs(jdbcTemplate, "INSERT INTO friends (user_id, friend_id) VALUES (?, ?)", users, users, friendsPerUser, true, random);
+        jdbcTemplate.update("""
+                UPDATE films AS f
+                SET likes_count = (SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.id)
+                """);
+        return jdbcTemplate;
+    }
+
+    public static void drop(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("SHUTDOWN");
+        ((HikariDataSource) jdbcTemplate.getDataSource()).close();
+    }
+
+    private static void initSchema(DataSource dataSource) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("schema.sql"),
+                new ClassPathResource("data.sql"));
+        populator.execute(dataSource);
+    }
+
+    private static void seedUsers(JdbcTemplate jdbcTemplate, int users) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= users; i++) {
+            batch.add(new Object[]{i, "user" + i + "@example.com", "user" + i, "User " + i, LocalDate.of(1990, 1, 1)});
+            if (batch.size() == BATCH_SIZE || i == users) {
+                jdbcTemplate.batchUpdate("INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static void seedFilms(JdbcTemplate jdbcTemplate, int films, Random random) {
+        List<Object[]> filmBatch = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> genreBatch = new ArrayList<>(BATCH_SIZE * 3);
+        for (int i = 1; i <= films; i++) {
+            filmBatch.add(new Object[]{i, "Film " + i, "Description " + i, LocalDate.of(2000, 1, 1), 90 + i % 60, 1 + i % 5});
+            int genres = 1 + random.nextInt(3);
+            for (int genre = 1; genre <= genres; genre++) {
+                genreBatch.add(new Object[]{i, genre + (i % 4)});
+            }
+            if (filmBatch.size() == BATCH_SIZE || i == films) {
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO films (id, name, description, releaseDate, duration, mpa_id)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        """, filmBatch);
+                jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genreBatch);
+                filmBatch.clear();
+                genreBatch.clear();
+            }
+        }
+    }
+
+    private static void seedPairs(JdbcTemplate jdbcTemplate, String sql, int owners, int targets, int perOwner,
+                                  boolean excludeSelf, Random random) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        int limit = Math.min(perOwner, excludeSelf ? targets - 1 : targets);
+        for (int owner = 1; owner <= owners; owner++) {
+            Set<Integer> chosen = new HashSet<>();
+            while (chosen.size() < limit) {
+                int target = 1 + random.nextInt(targets);
+                if (!excludeSelf || target != owner) {
+                    chosen.add(target);
+                }
+            }
+            for (Integer target : chosen) {
+                batch.add(new Object[]{owner, target});
+            }
+            if (batch.size() >= BATCH_SIZE || owner == owners) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.RelationLoader;
+import ru.yandex.practicum.filmorate.storage.existence.ExistenceIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.filmgenre.FilmGenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreCachedStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaCachedStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.popularity.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.recommendation.LikesMatrix;
+import ru.yandex.practicum.filmorate.storage.search.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+import java.time.Duration;
+
+public final class BenchmarkServices {
+
+    private static final Duration DICTIONARY_RELOAD_INTERVAL = Duration.ofSeconds(10);
+
+    private BenchmarkServices() {
+    }
+
+    public static FilmService filmService(JdbcTemplate jdbcTemplate, boolean singleQueryHydration,
+                                          RelationLoader relationLoader) {
+        StorageVersions versions = new StorageVersions();
+        FilmDbStorage filmStorage = new FilmDbStorage(jdbcTemplate, versions);
+        LikeDbStorage likeStorage = new LikeDbStorage(jdbcTemplate, versions);
+        FilmGenreDbStorage filmGenreStorage = new FilmGenreDbStorage(jdbcTemplate, versions);
+        MpaCachedStorage mpaStorage = new MpaCachedStorage(new MpaDbStorage(jdbcTemplate), versions,
+                DICTIONARY_RELOAD_INTERVAL);
+        mpaStorage.refresh();
+        GenreCachedStorage genreStorage = new GenreCachedStorage(new GenreDbStorage(jdbcTemplate), versions,
+                DICTIONARY_RELOAD_INTERVAL);
+        genreStorage.refresh();
+        LikesMatrix likesMatrix = new LikesMatrix(likeStorage);
+        likesMatrix.load();
+        FilmSearchIndex searchIndex = new FilmSearchIndex(filmStorage);
+        searchIndex.load();
+        ExistenceIndex existenceIndex = new ExistenceIndex(new UserDbStorage(jdbcTemplate, versions), filmStorage);
+        existenceIndex.load();
+        return new FilmService(filmStorage,
+                likeStorage,
+                filmGenreStorage,
+                mpaStorage,
+                genreStorage,
+                new FilmPopularityIndex(likeStorage, filmStorage, filmGenreStorage, false),
+                existenceIndex,
+                likesMatrix,
+                searchIndex,
+                relationLoader,
+                event -> {
+                },
+                singleQueryHydration);
+    }
+}
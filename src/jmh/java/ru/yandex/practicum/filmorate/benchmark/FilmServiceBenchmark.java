@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.RelationLoader;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmServiceBenchmark {
+
+    @Param("10000")
+    int users;
+
+    @Param("5000")
+    int films;
+
+    @Param("20")
+    int likesPerUser;
+
+    @Param("20")
+    int friendsPerUser;
+
+    @Param({"single-query", "sequential", "concurrent"})
+    String hydration;
+
+    private JdbcTemplate jdbcTemplate;
+    private FilmService filmService;
+    private RelationLoader relationLoader;
+
+    @Setup
+    public void setUp() {
+        jdbcTemplate = BenchmarkDatabase.create(users, films, likesPerUser, friendsPerUser);
+        relationLoader = new RelationLoader("concurrent".equals(hydration), 2);
+        filmService = BenchmarkServices.filmService(jdbcTemplate, "single-query".equals(hydration), relationLoader);
+    }
+
+    @TearDown
+    public void tearDown() {
+        relationLoader.shutdown();
+        BenchmarkDatabase.drop(jdbcTemplate);
+    }
+
+    @Benchmark
+    public Collection<Film> findAll() {
+        return filmService.findAll(true);
+    }
+
+    @Benchmark
+    public List<Film> getTopPopular() {
+        return filmService.getTopPopular(100, null, null, true);
+    }
+
+    @Benchmark
+    public Film findById() {
+        return filmService.findById(films / 2);
+    }
+}
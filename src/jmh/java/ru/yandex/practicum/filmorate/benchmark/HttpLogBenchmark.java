@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.core.BodyFilters;
+import org.zalando.logbook.core.DefaultHttpLogWriter;
+import org.zalando.logbook.core.DefaultSink;
+import org.zalando.logbook.json.JsonHttpLogFormatter;
+import org.zalando.logbook.servlet.LogbookFilter;
+import ru.yandex.practicum.filmorate.controller.AsyncHttpLogWriter;
+import ru.yandex.practicum.filmorate.controller.SamplingLogStrategy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы Logbook на один запрос: full — как в application.properties (все тела,
+ * синхронная запись), production — как в профиле prod (выборка 1%, тела до 2 КБ, асинхронная запись).
+ * Аппендер пишет в пустой поток, так что измеряется буферизация, форматирование и передача в логгер.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpLogBenchmark {
+
+    @Param({"off", "full", "production"})
+    String mode;
+
+    @Param({"2000", "200000"})
+    int responseBytes;
+
+    private byte[] body;
+    private LogbookFilter filter;
+    private AsyncHttpLogWriter asyncWriter;
+    private OutputStreamAppender<ILoggingEvent> appender;
+
+    @Setup
+    public void setUp() {
+        body = responseBody(responseBytes);
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d %level [%thread] %logger - %msg%n");
+        encoder.start();
+        appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        Logger logger = context.getLogger("org.zalando.logbook");
+        logger.detachAndStopAllAppenders();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        logger.setLevel("off".equals(mode) ? Level.INFO : Level.TRACE);
+
+        if ("production".equals(mode)) {
+            SamplingLogStrategy strategy = new SamplingLogStrategy(0.01, 400, Duration.ofMillis(500));
+            asyncWriter = new AsyncHttpLogWriter(10_000);
+            asyncWriter.start();
+            filter = new LogbookFilter(Logbook.builder()
+                    .strategy(strategy)
+                    .correlationId(strategy)
+                    .bodyFilter(BodyFilters.truncate(2048))
+                    .sink(new DefaultSink(new JsonHttpLogFormatter(), asyncWriter))
+                    .build());
+        } else {
+            filter = new LogbookFilter(Logbook.builder()
+                    .sink(new DefaultSink(new JsonHttpLogFormatter(), new DefaultHttpLogWriter()))
+                    .build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (asyncWriter != null) {
+            asyncWriter.stop();
+        }
+        appender.stop();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse request() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/films/popular");
+        request.addParameter("count", "10");
+        MockHttpServletResponse response = new BufferedResponse();
+        FilterChain chain = (req, res) -> {
+            res.setContentType("application/json");
+            res.getOutputStream().write(body);
+        };
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    /**
+     * Поток MockHttpServletResponse пишет побайтно, что на больших телах заслоняет сам Logbook.
+     */
+    private static final class BufferedResponse extends MockHttpServletResponse {
+
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                content.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                content.write(b, off, len);
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+    }
+
+    private static byte[] responseBody(int size) {
+        StringBuilder json = new StringBuilder("[");
+        for (int id = 1; json.length() < size; id++) {
+            if (id > 1) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(id)
+                    .append(",\"name\":\"Фильм ").append(id)
+                    .append("\",\"description\":\"Описание фильма\",\"releaseDate\":\"2000-01-01\",\"duration\":120")
+                    .append(",\"mpa\":{\"id\":1,\"name\":\"G\"},\"genres\":[{\"id\":1,\"name\":\"Комедия\"}]")
+                    .append(",\"likes\":[1,2,3],\"likesCount\":3}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.filmgenre.FilmGenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.friend.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.recommendation.LikesMatrix;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Param("10000")
+    int users;
+
+    @Param("5000")
+    int films;
+
+    @Param("20")
+    int likesPerUser;
+
+    @Param("20")
+    int friendsPerUser;
+
+    @Param("100")
+    int batch;
+
+    private JdbcTemplate jdbcTemplate;
+    private FilmDbStorage filmStorage;
+    private LikeDbStorage likeStorage;
+    private FilmGenreDbStorage filmGenreStorage;
+    private FriendDbStorage friendStorage;
+    private LikesMatrix likesMatrix;
+    private List<Integer> filmIds;
+
+    @Setup
+    public void setUp() {
+        jdbcTemplate = BenchmarkDatabase.create(users, films, likesPerUser, friendsPerUser);
+        StorageVersions versions = new StorageVersions();
+        filmStorage = new FilmDbStorage(jdbcTemplate, versions);
+        likeStorage = new LikeDbStorage(jdbcTemplate, versions);
+        filmGenreStorage = new FilmGenreDbStorage(jdbcTemplate, versions);
+        friendStorage = new FriendDbStorage(jdbcTemplate, versions);
+        likesMatrix = new LikesMatrix(likeStorage);
+        likesMatrix.load();
+        filmIds = IntStream.rangeClosed(1, Math.min(batch, films)).boxed().toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDatabase.drop(jdbcTemplate);
+    }
+
+    @Benchmark
+    public List<Integer> recommendFilms() {
+        return likesMatrix.recommend(users / 2, 10);
+    }
+
+    @Benchmark
+    public Collection<Film> findTopPopular() {
+        return filmStorage.findTopPopular(10, null, null);
+    }
+
+    @Benchmark
+    public Map<Integer, Set<Integer>> getLikesByFilmIds() {
+        return likeStorage.getLikesByFilmIds(filmIds);
+    }
+
+    @Benchmark
+    public Map<Integer, Set<Genre>> getGenresByFilmIds() {
+        return filmGenreStorage.getGenresByFilmIds(filmIds);
+    }
+
+    @Benchmark
+    public Set<Integer> getCommonFriendIds() {
+        return friendStorage.getCommonFriendIds(1, 2);
+    }
+}
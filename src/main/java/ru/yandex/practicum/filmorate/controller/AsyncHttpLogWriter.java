@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.core.DefaultHttpLogWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Передаёт уже отформатированные сообщения Logbook в аппендер из отдельного потока.
+ * Форматирование остаётся на потоке запроса: после ответа объекты запроса и ответа
+ * контейнер может переиспользовать. При переполненной очереди сообщение отбрасывается
+ * и учитывается в метрике filmorate.http_log.dropped — запрос не ждёт диска.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.http-log.production.enabled", havingValue = "true")
+public class AsyncHttpLogWriter implements HttpLogWriter, MeterBinder {
+
+    private final DefaultHttpLogWriter delegate = new DefaultHttpLogWriter();
+    private final BlockingQueue<Message> queue;
+    private Thread worker;
+    private Counter droppedCounter;
+
+    public AsyncHttpLogWriter(@Value("${filmorate.http-log.queue-capacity:10000}") int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = Thread.ofPlatform()
+                .name("http-log-writer")
+                .daemon(true)
+                .start(this::drain);
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.interrupt();
+        try {
+            worker.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Message> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.forEach(this::writeNow);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.http_log.queue_depth", queue, BlockingQueue::size)
+                .description("Сообщения журнала HTTP, ожидающие записи")
+                .register(registry);
+        droppedCounter = Counter.builder("filmorate.http_log.dropped")
+                .description("Сообщения журнала HTTP, отброшенные из-за переполнения очереди")
+                .register(registry);
+    }
+
+    @Override
+    public boolean isActive() {
+        return delegate.isActive();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, String request) {
+        offer(new Message(precorrelation, request));
+    }
+
+    @Override
+    public void write(Correlation correlation, String response) {
+        offer(new Message(correlation, response));
+    }
+
+    private void offer(Message message) {
+        if (!queue.offer(message) && droppedCounter != null) {
+            droppedCounter.increment();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                writeNow(queue.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeNow(Message message) {
+        try {
+            if (message.correlation() instanceof Correlation correlation) {
+                delegate.write(correlation, message.text());
+            } else {
+                delegate.write(message.correlation(), message.text());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Не удалось записать сообщение журнала HTTP", e);
+        }
+    }
+
+    private record Message(Precorrelation correlation, String text) {
+    }
+}
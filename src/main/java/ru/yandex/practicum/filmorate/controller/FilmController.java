@@ -2,11 +2,29 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exception.ConditionNotMetException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmImportReport;
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
+import ru.yandex.practicum.filmorate.service.FilmImportService;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularFilmsCache;
+import ru.yandex.practicum.filmorate.storage.search.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @RestController
@@ -14,15 +32,43 @@ import java.util.Collection;
 @RequiredArgsConstructor
 public class FilmController {
 
+    private static final String LIKES_IDS = "ids";
+    private static final String LIKES_COUNT = "count";
+
     private final FilmService filmService;
+    private final FilmImportService filmImportService;
+    private final PopularFilmsCache popularFilmsCache;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final VersionTags versionTags;
 
     @GetMapping
-    public Collection<Film> findAll() {
-        return filmService.findAll();
+    public Collection<Film> findAll(@RequestParam(defaultValue = LIKES_IDS) String likes, WebRequest request) {
+        boolean withLikeIds = withLikeIds(likes);
+        String etag = versionTags.collection(StorageVersions.Scope.FILMS, withLikeIds ? LIKES_IDS : LIKES_COUNT);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return filmService.findAll(withLikeIds);
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll(@RequestParam(defaultValue = LIKES_IDS) String likes) {
+        boolean withLikeIds = withLikeIds(likes);
+        return jsonArrayStreamer.<Film>stream(consumer -> filmService.streamAll(withLikeIds, consumer));
+    }
+
+    @GetMapping(params = "limit")
+    public CursorPage<Film> findPage(@RequestParam(required = false) Integer after,
+                                     @RequestParam int limit,
+                                     @RequestParam(defaultValue = LIKES_IDS) String likes) {
+        return filmService.findPage(after, limit, withLikeIds(likes));
     }
 
     @GetMapping("/{id}")
-    public Film findById(@PathVariable Integer id) {
+    public Film findById(@PathVariable Integer id, WebRequest request) {
+        if (request.checkNotModified(versionTags.entity(StorageVersions.Scope.FILMS, id, null))) {
+            return null;
+        }
         return filmService.findById(id);
     }
 
@@ -31,6 +77,11 @@ public class FilmController {
         return filmService.create(film);
     }
 
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public FilmImportReport importFilms(InputStream body) throws IOException {
+        return filmImportService.importFilms(body);
+    }
+
     @PutMapping
     public Film update(@RequestBody Film newFilm) {
         return filmService.update(newFilm);
@@ -46,8 +97,49 @@ public class FilmController {
         filmService.deleteLike(id, userId);
     }
 
+    @PostMapping("/likes")
+    public List<LikeBatchResult> addLikes(@RequestBody List<LikeBatchItem> likes) {
+        return filmService.addLikes(likes);
+    }
+
     @GetMapping("/popular")
-    public Collection<Film> getTopPopular(@RequestParam(defaultValue = "10") int count) {
-        return filmService.getTopPopular(count);
+    public ResponseEntity<byte[]> getTopPopular(@RequestParam(defaultValue = "10") int count,
+                                                @RequestParam(required = false) Integer genreId,
+                                                @RequestParam(required = false) Integer year,
+                                                @RequestParam(defaultValue = LIKES_IDS) String likes) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(popularFilmsCache.getTopPopular(count, genreId, year, withLikeIds(likes)));
+    }
+
+    @GetMapping("/common")
+    public Collection<Film> getCommonFilms(@RequestParam Integer userId,
+                                           @RequestParam Integer friendId,
+                                           @RequestParam(defaultValue = LIKES_IDS) String likes) {
+        return filmService.getCommonFilms(userId, friendId, withLikeIds(likes));
+    }
+
+    @GetMapping("/search")
+    public Collection<Film> search(@RequestParam String query,
+                                   @RequestParam(defaultValue = "title,description") List<String> by,
+                                   @RequestParam(defaultValue = "20") int limit,
+                                   @RequestParam(defaultValue = LIKES_IDS) String likes) {
+        Set<FilmSearchIndex.Field> fields = EnumSet.noneOf(FilmSearchIndex.Field.class);
+        for (String field : by) {
+            switch (field.trim()) {
+                case "title" -> fields.add(FilmSearchIndex.Field.TITLE);
+                case "description" -> fields.add(FilmSearchIndex.Field.DESCRIPTION);
+                default -> throw new ConditionNotMetException("Поиск возможен только по title и description");
+            }
+        }
+        return filmService.search(query, fields, limit, withLikeIds(likes));
+    }
+
+    private boolean withLikeIds(String likes) {
+        return switch (likes.trim()) {
+            case LIKES_IDS -> true;
+            case LIKES_COUNT -> false;
+            default -> throw new ConditionNotMetException("Параметр likes может быть только ids или count");
+        };
     }
 }
@@ -5,8 +5,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
 import java.util.Collection;
 
@@ -16,14 +18,21 @@ import java.util.Collection;
 public class GenreController {
 
     private final GenreService genreService;
+    private final VersionTags versionTags;
 
     @GetMapping
-    public Collection<Genre> findAll() {
+    public Collection<Genre> findAll(WebRequest request) {
+        if (request.checkNotModified(versionTags.collection(StorageVersions.Scope.GENRES, null))) {
+            return null;
+        }
         return genreService.findAll();
     }
 
     @GetMapping("/{id}")
-    public Genre findById(@PathVariable Integer id) {
+    public Genre findById(@PathVariable Integer id, WebRequest request) {
+        if (request.checkNotModified(versionTags.entity(StorageVersions.Scope.GENRES, id, null))) {
+            return null;
+        }
         return genreService.findById(id);
     }
 }
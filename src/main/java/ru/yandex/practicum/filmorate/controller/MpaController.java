@@ -5,8 +5,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaService;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
 import java.util.Collection;
 
@@ -16,14 +18,21 @@ import java.util.Collection;
 public class MpaController {
 
     private final MpaService mpaService;
+    private final VersionTags versionTags;
 
     @GetMapping
-    public Collection<Mpa> findAll() {
+    public Collection<Mpa> findAll(WebRequest request) {
+        if (request.checkNotModified(versionTags.collection(StorageVersions.Scope.MPA, null))) {
+            return null;
+        }
         return mpaService.findAll();
     }
 
     @GetMapping("/{id}")
-    public Mpa findById(@PathVariable Integer id) {
+    public Mpa findById(@PathVariable Integer id, WebRequest request) {
+        if (request.checkNotModified(versionTags.entity(StorageVersions.Scope.MPA, id, null))) {
+            return null;
+        }
         return mpaService.findById(id);
     }
 }
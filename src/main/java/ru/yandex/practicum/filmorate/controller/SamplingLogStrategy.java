@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.CorrelationId;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Стратегия Logbook для production-режима. В лог попадает выборка запросов с долей sample-rate,
+ * а также все ответы со статусом не ниже minimum-status и все запросы дольше slow-threshold.
+ * <p>
+ * Решение о выборке — функция от correlation id, поэтому оно одинаково на всех этапах.
+ * Id генерируется на потоке запроса прямо перед process, там же читается из ThreadLocal.
+ * Тела запросов и ответов вне выборки не буферизуются: ошибки и медленные запросы из них
+ * пишутся со статусом, заголовками и временем, но без тел. Тело ответа ?stream=true не буферизуется никогда.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.http-log.production.enabled", havingValue = "true")
+public class SamplingLogStrategy implements Strategy, CorrelationId {
+
+    private static final long BUCKETS = 10_000;
+    private static final ThreadLocal<String> CURRENT_ID = new ThreadLocal<>();
+
+    private final long sampledBuckets;
+    private final int minimumStatus;
+    private final Duration slowThreshold;
+
+    public SamplingLogStrategy(@Value("${filmorate.http-log.sample-rate:0.01}") double sampleRate,
+                               @Value("${filmorate.http-log.minimum-status:400}") int minimumStatus,
+                               @Value("${filmorate.http-log.slow-threshold:500ms}") Duration slowThreshold) {
+        this.sampledBuckets = Math.round(Math.max(0, Math.min(1, sampleRate)) * BUCKETS);
+        this.minimumStatus = minimumStatus;
+        this.slowThreshold = slowThreshold;
+    }
+
+    @Override
+    public String generate(HttpRequest request) {
+        String id = String.format("%016x", ThreadLocalRandom.current().nextLong());
+        CURRENT_ID.set(id);
+        return id;
+    }
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        return isSampled(CURRENT_ID.get()) ? request.withBody() : request.withoutBody();
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        String id = CURRENT_ID.get();
+        CURRENT_ID.remove();
+        return isSampled(id) && !StreamingLogStrategy.isStream(request) ? response.withBody() : response.withoutBody();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+        // запрос пишется вместе с ответом, когда известны статус и время
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response, Sink sink)
+            throws IOException {
+        if (isSampled(correlation.getId())
+                || response.getStatus() >= minimumStatus
+                || correlation.getDuration().compareTo(slowThreshold) >= 0) {
+            sink.writeBoth(correlation, request, response);
+        }
+    }
+
+    private boolean isSampled(String id) {
+        if (id == null) {
+            return false;
+        }
+        return Long.remainderUnsigned(Long.parseUnsignedLong(id, 16), BUCKETS) < sampledBuckets;
+    }
+}
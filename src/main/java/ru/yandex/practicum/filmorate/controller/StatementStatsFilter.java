@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.yandex.practicum.filmorate.storage.jdbc.StatementCounter;
+
+import java.io.IOException;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.jdbc.statement-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementStatsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-Db-Statements";
+    public static final String TIME_HEADER = "X-Db-Time-Ms";
+
+    private final int warnThreshold;
+
+    public StatementStatsFilter(@Value("${filmorate.jdbc.statement-stats.warn-threshold:10}") int warnThreshold) {
+        this.warnThreshold = warnThreshold;
+    }
+
+    static void writeHeaders(HttpServletResponse response, StatementCounter counter) {
+        response.setHeader(STATEMENTS_HEADER, String.valueOf(counter.getStatements()));
+        response.setHeader(TIME_HEADER, String.valueOf(counter.getTimeMillis()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        StatementCounter counter = StatementCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            StatementCounter.stop();
+            if (!response.isCommitted()) {
+                writeHeaders(response, counter);
+            }
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String endpoint = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+            if (counter.getStatements() > warnThreshold) {
+                log.warn("{}: выполнено {} SQL-запросов за {} мс, порог {}",
+                        endpoint, counter.getStatements(), counter.getTimeMillis(), warnThreshold);
+            } else {
+                log.debug("{}: выполнено {} SQL-запросов за {} мс",
+                        endpoint, counter.getStatements(), counter.getTimeMillis());
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+
+/**
+ * Стратегия Logbook вне production-режима: всё пишется с телами, кроме ответов GET ?stream=true.
+ * Их тело — полная выгрузка фильмов или пользователей, и копия в журнале держала бы её целиком в памяти,
+ * поэтому такие запросы пишутся со статусом, заголовками и временем, но без тела ответа.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.http-log.production.enabled", havingValue = "false", matchIfMissing = true)
+public class StreamingLogStrategy implements Strategy {
+
+    private static final String STREAM_PARAM = "stream=true";
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        return isStream(request) ? response.withoutBody() : response.withBody();
+    }
+
+    static boolean isStream(HttpRequest request) {
+        for (String param : request.getQuery().split("&")) {
+            if (STREAM_PARAM.equals(param)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
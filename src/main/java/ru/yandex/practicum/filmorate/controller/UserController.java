@@ -2,9 +2,16 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.CursorPage;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
 import java.util.Collection;
 
@@ -15,14 +22,34 @@ import java.util.Collection;
 public class UserController {
 
     private final UserService userService;
+    private final FilmService filmService;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final VersionTags versionTags;
 
     @GetMapping
-    public Collection<User> findAll() {
+    public Collection<User> findAll(WebRequest request) {
+        if (request.checkNotModified(versionTags.collection(StorageVersions.Scope.USERS, null))) {
+            return null;
+        }
         return userService.findAll();
     }
 
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return jsonArrayStreamer.<User>stream(userService::streamAll);
+    }
+
+    @GetMapping(params = "limit")
+    public CursorPage<User> findPage(@RequestParam(required = false) Integer after,
+                                     @RequestParam int limit) {
+        return userService.findPage(after, limit);
+    }
+
     @GetMapping("/{id}")
-    public User findById(@PathVariable Integer id) {
+    public User findById(@PathVariable Integer id, WebRequest request) {
+        if (request.checkNotModified(versionTags.entity(StorageVersions.Scope.USERS, id, null))) {
+            return null;
+        }
         return userService.findById(id);
     }
 
@@ -53,6 +80,18 @@ public class UserController {
         return userService.findAllFriends(id);
     }
 
+    @GetMapping("/{id}/friends/recommendations")
+    public Collection<User> getFriendRecommendations(@PathVariable Integer id,
+                                                     @RequestParam(defaultValue = "10") int limit) {
+        return userService.getFriendRecommendations(id, limit);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public Collection<Film> getRecommendations(@PathVariable Integer id,
+                                               @RequestParam(defaultValue = "10") int limit) {
+        return filmService.getRecommendations(id, limit);
+    }
+
     @GetMapping("/{id}/friends/common/{otherId}")
     public Collection<User> getCommonFriends(@PathVariable Integer id,
                                        @PathVariable Integer otherId) {
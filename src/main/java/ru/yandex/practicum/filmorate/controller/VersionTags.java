@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+/**
+ * Строгие ETag из счётчиков версий: тег вычисляется до обращения к БД,
+ * так что совпавший If-None-Match отвечает 304 без запросов и сериализации.
+ */
+@Component
+@RequiredArgsConstructor
+public class VersionTags {
+
+    private final StorageVersions versions;
+
+    public String collection(StorageVersions.Scope scope, String variant) {
+        return format(scope, "all", versions.collection(scope), variant);
+    }
+
+    public String entity(StorageVersions.Scope scope, Integer id, String variant) {
+        return format(scope, String.valueOf(id), versions.entity(scope, id), variant);
+    }
+
+    private String format(StorageVersions.Scope scope, String key, long version, String variant) {
+        StringBuilder tag = new StringBuilder("\"")
+                .append(scope.name().toLowerCase())
+                .append('-').append(key)
+                .append('-').append(Long.toString(versions.getEpoch(), 36))
+                .append('-').append(Long.toString(version, 36));
+        if (variant != null) {
+            tag.append('-').append(variant);
+        }
+        return tag.append('"').toString();
+    }
+}
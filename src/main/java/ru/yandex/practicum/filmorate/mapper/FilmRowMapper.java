@@ -16,6 +16,7 @@ public class FilmRowMapper implements RowMapper<Film> {
         film.setDescription(rs.getString("description"));
         film.setReleaseDate(rs.getObject("releaseDate", java.time.LocalDate.class));
         film.setDuration(rs.getInt("duration"));
+        film.setLikesCount(rs.getInt("likes_count"));
         Integer mpaId = (Integer) rs.getObject("mpa_id");
         if (mpaId != null) {
             Mpa mpa = new Mpa();
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.mapper;
+
+import org.springframework.jdbc.core.RowMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+public class FilmWithRelationsRowMapper implements RowMapper<Film> {
+
+    private final FilmRowMapper filmRowMapper = new FilmRowMapper();
+    private final boolean withLikeIds;
+
+    public FilmWithRelationsRowMapper(boolean withLikeIds) {
+        this.withLikeIds = withLikeIds;
+    }
+
+    @Override
+    public Film mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Film film = filmRowMapper.mapRow(rs, rowNum);
+        Object[] genreIds = toArray(rs.getArray("genre_ids"));
+        Object[] genreNames = toArray(rs.getArray("genre_names"));
+        Set<Genre> genres = new HashSet<>();
+        for (int i = 0; i < genreIds.length; i++) {
+            Genre genre = new Genre();
+            genre.setId((Integer) genreIds[i]);
+            genre.setName((String) genreNames[i]);
+            genres.add(genre);
+        }
+        film.setGenres(genres);
+        if (withLikeIds) {
+            Set<Integer> likes = new HashSet<>();
+            for (Object userId : toArray(rs.getArray("like_ids"))) {
+                likes.add((Integer) userId);
+            }
+            film.setLikes(likes);
+        } else {
+            film.setLikes(null);
+        }
+        return film;
+    }
+
+    private Object[] toArray(Array array) throws SQLException {
+        return array == null ? new Object[0] : (Object[]) array.getArray();
+    }
+}
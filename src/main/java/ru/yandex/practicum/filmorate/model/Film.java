@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.time.LocalDate;
@@ -15,5 +16,7 @@ public class Film {
     Integer duration;
     Mpa mpa;
     Set<Genre> genres = new HashSet<>();
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     Set<Integer> likes = new HashSet<>();
+    Integer likesCount;
 }
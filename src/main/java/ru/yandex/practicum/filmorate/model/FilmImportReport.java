@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class FilmImportReport {
+    long received;
+    long imported;
+    long rejected;
+    int commits;
+    List<FilmImportError> errors = new ArrayList<>();
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LikeBatchResult {
+    Integer filmId;
+    Integer userId;
+    Status status;
+
+    public enum Status {
+        ADDED,
+        ALREADY_LIKED,
+        FILM_NOT_FOUND,
+        USER_NOT_FOUND,
+        INVALID
+    }
+}
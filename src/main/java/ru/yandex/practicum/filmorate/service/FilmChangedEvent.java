@@ -0,0 +1,4 @@
+package ru.yandex.practicum.filmorate.service;
+
+public record FilmChangedEvent(Integer filmId, boolean created) {
+}
@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.ConditionNotMetException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmImportError;
+import ru.yandex.practicum.filmorate.model.FilmImportReport;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.filmgenre.FilmGenreStorage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Импорт фильмов из NDJSON: одна строка — один фильм в формате POST /films.
+ * <p>
+ * Поток читается построчно, в памяти держится не больше commitInterval фильмов.
+ * Строки проверяются по кэшам рейтингов и жанров, фильмы и их жанры пишутся пачками по batchSize,
+ * каждые commitInterval строк транзакция фиксируется. Ошибочная строка не прерывает импорт,
+ * а попадает в отчёт; если не удалось записать пачку, откатывается только её транзакция.
+ */
+@Slf4j
+@Service
+public class FilmImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final FilmService filmService;
+    private final FilmStorage filmStorage;
+    private final FilmGenreStorage filmGenreStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader filmReader;
+    private final int batchSize;
+    private final int commitInterval;
+
+    public FilmImportService(FilmService filmService,
+                             @Qualifier("filmDbStorage") FilmStorage filmStorage,
+                             @Qualifier("filmGenreDbStorage") FilmGenreStorage filmGenreStorage,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${filmorate.films.import.batch-size:500}") int batchSize,
+                             @Value("${filmorate.films.import.commit-interval:5000}") int commitInterval) {
+        this.filmService = filmService;
+        this.filmStorage = filmStorage;
+        this.filmGenreStorage = filmGenreStorage;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.filmReader = objectMapper.readerFor(Film.class);
+        this.batchSize = batchSize;
+        this.commitInterval = Math.max(commitInterval, batchSize);
+    }
+
+    public FilmImportReport importFilms(InputStream body) throws IOException {
+        FilmImportReport report = new FilmImportReport();
+        List<Film> pending = new ArrayList<>();
+        long firstPendingLine = 0;
+        long lineNumber = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.setReceived(report.getReceived() + 1);
+            Film film = parse(line, lineNumber, report);
+            if (film == null) {
+                continue;
+            }
+            if (pending.isEmpty()) {
+                firstPendingLine = lineNumber;
+            }
+            pending.add(film);
+            if (pending.size() >= commitInterval) {
+                commit(pending, firstPendingLine, lineNumber, report);
+                pending = new ArrayList<>();
+            }
+        }
+        commit(pending, firstPendingLine, lineNumber, report);
+        log.info("Импорт фильмов завершён: строк - {}, загружено - {}, отклонено - {}, транзакций - {}",
+                report.getReceived(), report.getImported(), report.getRejected(), report.getCommits());
+        return report;
+    }
+
+    private Film parse(String line, long lineNumber, FilmImportReport report) {
+        try {
+            Film film = filmReader.readValue(line);
+            if (film == null) {
+                throw new ConditionNotMetException("Строка должна содержать объект фильма");
+            }
+            film.setId(null);
+            filmService.validateNew(film);
+            return film;
+        } catch (JsonProcessingException e) {
+            reject(report, lineNumber, 1, "Некорректный JSON: " + e.getOriginalMessage());
+        } catch (ConditionNotMetException | NotFoundException e) {
+            reject(report, lineNumber, 1, e.getMessage());
+        }
+        return null;
+    }
+
+    private void commit(List<Film> films, long firstLine, long lastLine, FilmImportReport report) {
+        if (films.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int from = 0; from < films.size(); from += batchSize) {
+                    List<Film> batch = films.subList(from, Math.min(from + batchSize, films.size()));
+                    filmStorage.createAll(batch);
+                    Map<Integer, Set<Genre>> genresByFilmId = new HashMap<>();
+                    batch.forEach(film -> genresByFilmId.put(film.getId(), film.getGenres()));
+                    filmGenreStorage.addGenres(genresByFilmId);
+                }
+            });
+        } catch (RuntimeException e) {
+            // транзакция пачки уже откатилась, предыдущие зафиксированы — продолжаем со следующей
+            log.warn("Не удалось записать строки {}-{} при импорте фильмов", firstLine, lastLine, e);
+            reject(report, firstLine, films.size(), "Строки " + firstLine + "-" + lastLine + " не записаны: "
+                    + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            return;
+        }
+        filmService.registerImported(films);
+        report.setImported(report.getImported() + films.size());
+        report.setCommits(report.getCommits() + 1);
+        log.info("Импорт фильмов: зафиксировано строк - {}, загружено всего - {}, отклонено - {}",
+                lastLine, report.getImported(), report.getRejected());
+    }
+
+    private static void reject(FilmImportReport report, long line, int count, String message) {
+        report.setRejected(report.getRejected() + count);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new FilmImportError(line, message));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
+
+import java.util.List;
+
+public record FilmLikesChangedEvent(List<LikeBatchItem> added, List<LikeBatchItem> deleted) {
+}
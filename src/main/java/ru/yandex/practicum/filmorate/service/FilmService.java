@@ -3,23 +3,40 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.ConditionNotMetException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
+import ru.yandex.practicum.filmorate.model.LikeBatchResult;
+import ru.yandex.practicum.filmorate.storage.existence.ExistenceIndex;
 import ru.yandex.practicum.filmorate.storage.filmgenre.FilmGenreStorage;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
 import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
-import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.storage.popularity.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.recommendation.LikesMatrix;
+import ru.yandex.practicum.filmorate.storage.search.FilmSearchIndex;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,48 +44,102 @@ import java.util.stream.Collectors;
 public class FilmService {
 
     private final FilmStorage filmStorage;
-    private final UserStorage userStorage;
     private final LikeStorage likeStorage;
     private final FilmGenreStorage filmGenreStorage;
     private final MpaStorage mpaStorage;
     private final GenreStorage genreStorage;
+    private final FilmPopularityIndex popularityIndex;
+    private final ExistenceIndex existenceIndex;
+    private final LikesMatrix likesMatrix;
+    private final FilmSearchIndex searchIndex;
+    private final RelationLoader relationLoader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean singleQueryHydration;
+    private static final int MAX_POPULAR_COUNT = 1000;
     private static final int MAX_DESCRIPTION_LENGTH = 200;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_CHUNK_SIZE = 500;
+    private static final int MAX_LIKE_BATCH_SIZE = 10_000;
+    private static final int MAX_RECOMMENDATIONS = 100;
+    private static final int MAX_SEARCH_RESULTS = 100;
     private static final LocalDate FIRST_FILM_RELEASE_DATE = LocalDate.of(1895, 12, 28);
+    private static final int LOCK_STRIPES = 64;
+
+    // запись лайка в БД и его бит в матрице меняются под одной полосой, иначе лайк и снятие лайка
+    // одной пары могут дойти до матрицы в другом порядке, чем до БД
+    private final ReentrantLock[] userLocks = new ReentrantLock[LOCK_STRIPES];
 
     @Autowired
     public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
-                       @Qualifier("userDbStorage") UserStorage userStorage,
-                       @Qualifier("likeDbStorage") LikeStorage likeStorage,
+                       @Qualifier("likeWriteBehindStorage") LikeStorage likeStorage,
                        @Qualifier("filmGenreDbStorage") FilmGenreStorage filmGenreStorage,
-                       @Qualifier("mpaDbStorage") MpaStorage mpaStorage,
-                       @Qualifier("genreDbStorage") GenreStorage genreStorage) {
+                       @Qualifier("mpaCachedStorage") MpaStorage mpaStorage,
+                       @Qualifier("genreCachedStorage") GenreStorage genreStorage,
+                       FilmPopularityIndex popularityIndex,
+                       ExistenceIndex existenceIndex,
+                       LikesMatrix likesMatrix,
+                       FilmSearchIndex searchIndex,
+                       RelationLoader relationLoader,
+                       ApplicationEventPublisher eventPublisher,
+                       @Value("${filmorate.films.single-query-hydration:true}") boolean singleQueryHydration) {
         this.filmStorage = filmStorage;
-        this.userStorage = userStorage;
         this.likeStorage = likeStorage;
         this.filmGenreStorage = filmGenreStorage;
         this.mpaStorage = mpaStorage;
         this.genreStorage = genreStorage;
+        this.popularityIndex = popularityIndex;
+        this.existenceIndex = existenceIndex;
+        this.likesMatrix = likesMatrix;
+        this.searchIndex = searchIndex;
+        this.relationLoader = relationLoader;
+        this.eventPublisher = eventPublisher;
+        this.singleQueryHydration = singleQueryHydration;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            userLocks[i] = new ReentrantLock();
+        }
     }
 
-    public Collection<Film> findAll() {
+    public Collection<Film> findAll(boolean withLikeIds) {
+        if (singleQueryHydration) {
+            return filmStorage.findAllWithRelations(withLikeIds);
+        }
         Collection<Film> films = filmStorage.findAll();
-        if (films.isEmpty()) {
-            return films;
+        fillRelations(films, withLikeIds);
+        return films;
+    }
+
+    public void streamAll(boolean withLikeIds, Consumer<Film> consumer) {
+        filmStorage.findAllInChunks(STREAM_CHUNK_SIZE, films -> {
+            fillRelations(films, withLikeIds);
+            films.forEach(consumer);
+        });
+    }
+
+    public CursorPage<Film> findPage(Integer after, int limit, boolean withLikeIds) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ConditionNotMetException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
         }
-        List<Integer> filmIds = films.stream()
-                .map(Film::getId)
-                .toList();
-        Map<Integer, Set<Genre>> genresByFilmId = filmGenreStorage.getGenresByFilmIds(filmIds);
-        Map<Integer, Set<Integer>> likesByFilmId = likeStorage.getLikesByFilmIds(filmIds);
-        for (Film film : films) {
-            Integer filmId = film.getId();
-            film.setGenres(genresByFilmId.getOrDefault(filmId, new HashSet<>()));
-            film.setLikes(likesByFilmId.getOrDefault(filmId, new HashSet<>()));
+        List<Film> films = new ArrayList<>(filmStorage.findPage(after == null ? 0 : after, limit + 1));
+        Integer nextCursor = null;
+        if (films.size() > limit) {
+            films = films.subList(0, limit);
+            nextCursor = films.get(limit - 1).getId();
         }
-        return films;
+        fillRelations(films, withLikeIds);
+        return new CursorPage<>(films, nextCursor);
     }
 
     public Film create(Film film) {
+        validateNew(film);
+        log.info("Фильм успешно создан: ID={}, name={}", film.getId(), film.getName());
+        Film created = filmStorage.create(film);
+        filmGenreStorage.setGenres(created.getId(), created.getGenres());
+        indexCreated(created);
+        eventPublisher.publishEvent(new FilmChangedEvent(created.getId(), true));
+        return created;
+    }
+
+    void validateNew(Film film) {
         if (film.getName() == null || film.getName().isBlank()) {
             log.warn("Валидация не пройдена при создании фильма: название должно быть указано");
             throw new ConditionNotMetException("Название должно быть указано");
@@ -99,10 +170,22 @@ public class FilmService {
             throw new ConditionNotMetException("Продолжительность должна быть положительным числом");
         }
         validateGenres(film);
-        log.info("Фильм успешно создан: ID={}, name={}", film.getId(), film.getName());
-        Film created = filmStorage.create(film);
-        filmGenreStorage.setGenres(created.getId(), created.getGenres());
-        return created;
+    }
+
+    void registerImported(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        films.forEach(this::indexCreated);
+        // кэшу популярных важен сам факт появления фильмов, одного события на пачку достаточно
+        eventPublisher.publishEvent(new FilmChangedEvent(films.get(films.size() - 1).getId(), true));
+    }
+
+    private void indexCreated(Film film) {
+        popularityIndex.put(film.getId(), 0);
+        popularityIndex.setAttributes(film.getId(), film.getReleaseDate(), film.getGenres());
+        searchIndex.index(film.getId(), film.getName(), film.getDescription());
+        existenceIndex.addFilm(film.getId());
     }
 
     public Film update(Film newFilm) {
@@ -142,54 +225,262 @@ public class FilmService {
         validateGenres(newFilm);
         Film updatedFilm = filmStorage.update(newFilm);
         filmGenreStorage.setGenres(updatedFilm.getId(), updatedFilm.getGenres());
+        popularityIndex.setAttributes(updatedFilm.getId(), updatedFilm.getReleaseDate(), updatedFilm.getGenres());
+        searchIndex.index(updatedFilm.getId(), updatedFilm.getName(), updatedFilm.getDescription());
+        eventPublisher.publishEvent(new FilmChangedEvent(updatedFilm.getId(), false));
         log.info("Фильм успешно обновлен: ID={}, name={}", updatedFilm.getId(), updatedFilm.getName());
         return updatedFilm;
     }
 
     public Film findById(Integer id) {
-        Film film = filmStorage.findById(id);
-        fillRelations(film);
-        return film;
+        if (singleQueryHydration) {
+            return filmStorage.findByIdWithRelations(id);
+        }
+        try (RelationLoader.Scope scope = relationLoader.open()) {
+            Supplier<Set<Genre>> genres = scope.fork(() -> filmGenreStorage.getGenres(id));
+            Supplier<Set<Integer>> likes = scope.fork(() -> likeStorage.getLikes(id));
+            Film film = filmStorage.findById(id);
+            film.setGenres(genres.get());
+            film.setLikes(likes.get());
+            return film;
+        }
     }
 
     public void addLike(Integer filmId, Integer userId) {
-        userStorage.findById(userId);
-        filmStorage.findById(filmId);
-        likeStorage.addLike(filmId, userId);
+        existenceIndex.requireUser(userId);
+        existenceIndex.requireFilm(filmId);
+        boolean added = withUserLocks(List.of(userId), () -> {
+            if (!likeStorage.addLike(filmId, userId)) {
+                return false;
+            }
+            likesMatrix.add(userId, filmId);
+            return true;
+        });
+        if (added) {
+            popularityIndex.increment(filmId);
+            eventPublisher.publishEvent(new FilmLikesChangedEvent(List.of(new LikeBatchItem(filmId, userId)), List.of()));
+        }
         log.info("Пользователь {} поставил лайк фильму {}", userId, filmId);
     }
 
     public void deleteLike(Integer filmId, Integer userId) {
-        userStorage.findById(userId);
-        filmStorage.findById(filmId);
-        likeStorage.deleteLike(filmId, userId);
+        existenceIndex.requireUser(userId);
+        existenceIndex.requireFilm(filmId);
+        boolean deleted = withUserLocks(List.of(userId), () -> {
+            if (!likeStorage.deleteLike(filmId, userId)) {
+                return false;
+            }
+            likesMatrix.remove(userId, filmId);
+            return true;
+        });
+        if (deleted) {
+            popularityIndex.decrement(filmId);
+            eventPublisher.publishEvent(new FilmLikesChangedEvent(List.of(), List.of(new LikeBatchItem(filmId, userId))));
+        }
         log.info("Пользователь {} удалил лайк фильму {}", userId, filmId);
     }
 
-    public List<Film> getTopPopular(int count) {
-        if (count < 1) {
-            throw new ConditionNotMetException("Количество фильмов в топе должно быть положительным");
+    public List<LikeBatchResult> addLikes(List<LikeBatchItem> likes) {
+        if (likes == null || likes.isEmpty()) {
+            return List.of();
         }
-        Collection<Film> films = filmStorage.findTopPopular(count);
+        if (likes.size() > MAX_LIKE_BATCH_SIZE) {
+            throw new ConditionNotMetException("В пакете не может быть больше " + MAX_LIKE_BATCH_SIZE + " лайков");
+        }
+        Set<Integer> filmIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (LikeBatchItem like : likes) {
+            if (like != null) {
+                filmIds.add(like.getFilmId());
+                userIds.add(like.getUserId());
+            }
+        }
+        filmIds.remove(null);
+        userIds.remove(null);
+        Set<Integer> existingFilmIds = existenceIndex.existingFilms(filmIds);
+        Set<Integer> existingUserIds = existenceIndex.existingUsers(userIds);
+
+        Set<LikeBatchItem> candidates = new LinkedHashSet<>();
+        for (LikeBatchItem like : likes) {
+            if (like != null && existingFilmIds.contains(like.getFilmId()) && existingUserIds.contains(like.getUserId())) {
+                candidates.add(like);
+            }
+        }
+        Set<Integer> candidateUserIds = candidates.stream()
+                .map(LikeBatchItem::getUserId)
+                .collect(Collectors.toSet());
+        List<LikeBatchItem> added = withUserLocks(candidateUserIds, () -> {
+            List<LikeBatchItem> written;
+            try {
+                written = likeStorage.addLikes(List.copyOf(candidates));
+            } catch (DuplicateKeyException e) {
+                log.warn("Пакет лайков пересёкся с параллельной записью, повторяем");
+                written = likeStorage.addLikes(List.copyOf(candidates));
+            }
+            written.forEach(like -> likesMatrix.add(like.getUserId(), like.getFilmId()));
+            return written;
+        });
+        added.forEach(like -> popularityIndex.increment(like.getFilmId()));
+        if (!added.isEmpty()) {
+            eventPublisher.publishEvent(new FilmLikesChangedEvent(added, List.of()));
+        }
+
+        Set<LikeBatchItem> notReported = new HashSet<>(added);
+        List<LikeBatchResult> results = new ArrayList<>(likes.size());
+        for (LikeBatchItem like : likes) {
+            if (like == null || like.getFilmId() == null || like.getUserId() == null) {
+                results.add(new LikeBatchResult(like == null ? null : like.getFilmId(),
+                        like == null ? null : like.getUserId(), LikeBatchResult.Status.INVALID));
+            } else if (!existingFilmIds.contains(like.getFilmId())) {
+                results.add(new LikeBatchResult(like.getFilmId(), like.getUserId(), LikeBatchResult.Status.FILM_NOT_FOUND));
+            } else if (!existingUserIds.contains(like.getUserId())) {
+                results.add(new LikeBatchResult(like.getFilmId(), like.getUserId(), LikeBatchResult.Status.USER_NOT_FOUND));
+            } else if (notReported.remove(like)) {
+                results.add(new LikeBatchResult(like.getFilmId(), like.getUserId(), LikeBatchResult.Status.ADDED));
+            } else {
+                results.add(new LikeBatchResult(like.getFilmId(), like.getUserId(), LikeBatchResult.Status.ALREADY_LIKED));
+            }
+        }
+        log.info("Пакет лайков обработан: получено {}, добавлено {}", likes.size(), added.size());
+        return results;
+    }
+
+    public List<Film> getTopPopular(int count, Integer genreId, Integer year, boolean withLikeIds) {
+        if (count < 1 || count > MAX_POPULAR_COUNT) {
+            throw new ConditionNotMetException("Количество фильмов в топе должно быть от 1 до " + MAX_POPULAR_COUNT);
+        }
+        if (genreId != null) {
+            genreStorage.findById(genreId);
+        }
+        Collection<Film> films;
+        if (popularityIndex.isEnabled()) {
+            films = findByIdsOrdered(popularityIndex.getTop(count, genreId, year), withLikeIds);
+        } else if (singleQueryHydration) {
+            films = filmStorage.findTopPopularWithRelations(count, genreId, year, withLikeIds);
+        } else {
+            films = filmStorage.findTopPopular(count, genreId, year);
+            fillRelations(films, withLikeIds);
+        }
+        return films.stream().collect(Collectors.toList());
+    }
+
+    public List<Film> getRecommendations(Integer userId, int limit) {
+        if (limit < 1 || limit > MAX_RECOMMENDATIONS) {
+            throw new ConditionNotMetException("Количество рекомендаций должно быть от 1 до " + MAX_RECOMMENDATIONS);
+        }
+        existenceIndex.requireUser(userId);
+        return findByIdsOrdered(likesMatrix.recommend(userId, limit), false);
+    }
+
+    public List<Film> getCommonFilms(Integer userId, Integer friendId, boolean withLikeIds) {
+        existenceIndex.requireUser(userId);
+        existenceIndex.requireUser(friendId);
+        return findByIdsOrdered(likesMatrix.commonLikes(userId, friendId), withLikeIds).stream()
+                .sorted(Comparator.comparing(Film::getLikesCount, Comparator.reverseOrder())
+                        .thenComparing(Film::getId))
+                .toList();
+    }
+
+    public List<Film> search(String query, Set<FilmSearchIndex.Field> fields, int limit, boolean withLikeIds) {
+        if (query == null || query.isBlank()) {
+            throw new ConditionNotMetException("Поисковый запрос должен быть указан");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new ConditionNotMetException("Количество результатов поиска должно быть от 1 до " + MAX_SEARCH_RESULTS);
+        }
+        Map<Integer, Integer> scores = searchIndex.search(query, fields);
+        // лайки нужны только кандидатам: фильмам выше порогового балла и всем с пороговым баллом
+        int cutoff = scoreAt(scores.values(), limit);
+        List<Integer> candidates = scores.entrySet().stream()
+                .filter(entry -> entry.getValue() >= cutoff)
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<Integer, Integer> likesCounts = popularityIndex.isEnabled()
+                ? popularityIndex.getLikes(candidates)
+                : filmStorage.findLikesCounts(candidates);
+        List<Integer> ids = candidates.stream()
+                .sorted(Comparator.comparing((Integer id) -> scores.get(id), Comparator.reverseOrder())
+                        .thenComparing(id -> likesCounts.getOrDefault(id, 0), Comparator.reverseOrder())
+                        .thenComparing(id -> id))
+                .limit(limit)
+                .toList();
+        return findByIdsOrdered(ids, withLikeIds);
+    }
+
+    private static int scoreAt(Collection<Integer> scores, int rank) {
+        if (scores.size() <= rank) {
+            return Integer.MIN_VALUE;
+        }
+        PriorityQueue<Integer> top = new PriorityQueue<>(rank + 1);
+        for (Integer score : scores) {
+            top.offer(score);
+            if (top.size() > rank) {
+                top.poll();
+            }
+        }
+        return top.peek();
+    }
+
+    private List<Film> findByIdsOrdered(List<Integer> ids, boolean withLikeIds) {
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            positions.put(ids.get(i), i);
+        }
+        Collection<Film> films;
+        if (singleQueryHydration) {
+            films = filmStorage.findByIdsWithRelations(ids, withLikeIds);
+        } else {
+            films = filmStorage.findByIds(ids);
+            fillRelations(films, withLikeIds);
+        }
+        return films.stream()
+                .sorted(Comparator.comparing(film -> positions.get(film.getId())))
+                .toList();
+    }
+
+    private void fillRelations(Collection<Film> films, boolean withLikeIds) {
         if (films.isEmpty()) {
-            return List.of();
+            return;
         }
         List<Integer> filmIds = films.stream()
                 .map(Film::getId)
                 .toList();
-        Map<Integer, Set<Genre>> genresByFilmId = filmGenreStorage.getGenresByFilmIds(filmIds);
-        Map<Integer, Set<Integer>> likesByFilmId = likeStorage.getLikesByFilmIds(filmIds);
+        Map<Integer, Set<Genre>> genresByFilmId;
+        Map<Integer, Set<Integer>> likesByFilmId;
+        try (RelationLoader.Scope scope = relationLoader.open()) {
+            Supplier<Map<Integer, Set<Genre>>> genres = scope.fork(() -> filmGenreStorage.getGenresByFilmIds(filmIds));
+            Supplier<Map<Integer, Set<Integer>>> likes = withLikeIds
+                    ? scope.fork(() -> likeStorage.getLikesByFilmIds(filmIds))
+                    : Map::of;
+            genresByFilmId = genres.get();
+            likesByFilmId = likes.get();
+        }
         for (Film film : films) {
             Integer filmId = film.getId();
             film.setGenres(genresByFilmId.getOrDefault(filmId, new HashSet<>()));
-            film.setLikes(likesByFilmId.getOrDefault(filmId, new HashSet<>()));
+            film.setLikes(withLikeIds ? likesByFilmId.getOrDefault(filmId, new HashSet<>()) : null);
         }
-        return films.stream().collect(Collectors.toList());
     }
 
-    private void fillRelations(Film film) {
-        film.setGenres(filmGenreStorage.getGenres(film.getId()));
-        film.setLikes(likeStorage.getLikes(film.getId()));
+    private <T> T withUserLocks(Collection<Integer> userIds, Supplier<T> action) {
+        // полосы берутся по возрастанию номера, поэтому пакеты с общими пользователями не ждут друг друга по кругу
+        int[] stripes = userIds.stream()
+                .mapToInt(userId -> Math.floorMod(userId, LOCK_STRIPES))
+                .distinct()
+                .sorted()
+                .toArray();
+        int locked = 0;
+        try {
+            for (int stripe : stripes) {
+                userLocks[stripe].lock();
+                locked++;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                userLocks[stripes[i]].unlock();
+            }
+        }
     }
 
     private void validateGenres(Film film) {
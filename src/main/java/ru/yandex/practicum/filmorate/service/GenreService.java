@@ -6,21 +6,18 @@ import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
 
 import java.util.Collection;
-import java.util.Comparator;
 
 @Service
 public class GenreService {
 
     private final GenreStorage genreStorage;
 
-    public GenreService(@Qualifier("genreDbStorage") GenreStorage genreStorage) {
+    public GenreService(@Qualifier("genreCachedStorage") GenreStorage genreStorage) {
         this.genreStorage = genreStorage;
     }
 
     public Collection<Genre> findAll() {
-        return genreStorage.findAll().stream()
-                .sorted(Comparator.comparing(Genre::getId))
-                .toList();
+        return genreStorage.findAll();
     }
 
     public Genre findById(Integer id) {
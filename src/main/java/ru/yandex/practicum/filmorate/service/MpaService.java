@@ -6,21 +6,18 @@ import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
 
 import java.util.Collection;
-import java.util.Comparator;
 
 @Service
 public class MpaService {
 
     private final MpaStorage mpaStorage;
 
-    public MpaService(@Qualifier("mpaDbStorage") MpaStorage mpaStorage) {
+    public MpaService(@Qualifier("mpaCachedStorage") MpaStorage mpaStorage) {
         this.mpaStorage = mpaStorage;
     }
 
     public Collection<Mpa> findAll() {
-        return mpaStorage.findAll().stream()
-                .sorted(Comparator.comparing(Mpa::getId))
-                .toList();
+        return mpaStorage.findAll();
     }
 
     public Mpa findById(Integer id) {
@@ -0,0 +1,319 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikesFlushedEvent;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Кэш ответа GET /films/popular без фильтров: готовый JSON по паре (count, likes).
+ * <p>
+ * Запись живёт ttl; устаревшая запись отдаётся как есть, а пересчёт уходит в отдельный поток,
+ * так что запрос ждёт вычисления только для ключа, которого ещё нет в кэше.
+ * Лайки копятся в общей карте изменений, которую разбирает одна фоновая задача: запись пересчитывается,
+ * только если меняется её содержимое — изменился фильм из топа или фильм снаружи набрал больше лайков,
+ * чем последний в топе. Пересчёт одного ключа всегда один: параллельные запросы ждут уже запущенное
+ * вычисление. Если ключ признан затронутым во время вычисления, результат всё равно сохраняется,
+ * но сразу ставится на повторный пересчёт.
+ */
+@Slf4j
+@Component
+public class PopularFilmsCache implements MeterBinder {
+
+    private final FilmService filmService;
+    private final FilmStorage filmStorage;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final int maxCount;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Key, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Key, Long> generations = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> pendingDeltas = new ConcurrentHashMap<>();
+    private final Set<Key> staleKeys = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+            .name("popular-films-cache")
+            .daemon(true)
+            .factory());
+    private Counter hitCounter;
+    private Counter missCounter;
+    private Counter refreshCounter;
+
+    public PopularFilmsCache(FilmService filmService,
+                             @Qualifier("filmDbStorage") FilmStorage filmStorage,
+                             ObjectMapper objectMapper,
+                             @Value("${filmorate.popular.cache.enabled:true}") boolean enabled,
+                             @Value("${filmorate.popular.cache.ttl:5s}") Duration ttl,
+                             @Value("${filmorate.popular.cache.max-entries:32}") int maxEntries,
+                             @Value("${filmorate.popular.cache.max-count:100}") int maxCount) {
+        this.filmService = filmService;
+        this.filmStorage = filmStorage;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.maxCount = maxCount;
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.popular.cache.size", entries, Map::size)
+                .description("Закэшированные ответы /films/popular")
+                .register(registry);
+        hitCounter = counter(registry, "hit");
+        missCounter = counter(registry, "miss");
+        refreshCounter = counter(registry, "refresh");
+    }
+
+    public byte[] getTopPopular(int count, Integer genreId, Integer year, boolean withLikeIds) {
+        if (!enabled || genreId != null || year != null || count < 1 || count > maxCount) {
+            return serialize(filmService.getTopPopular(count, genreId, year, withLikeIds));
+        }
+        Key key = new Key(count, withLikeIds);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            increment(hitCounter);
+            if (System.nanoTime() - entry.computedAt() >= ttlNanos && !inFlight.containsKey(key)) {
+                staleKeys.add(key);
+                scheduleDrain();
+            }
+            return entry.json();
+        }
+        increment(missCounter);
+        try {
+            return load(key).join().json();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @EventListener
+    public void onLikesChanged(FilmLikesChangedEvent event) {
+        onLikes(event.added(), event.deleted());
+    }
+
+    @EventListener
+    public void onLikesFlushed(LikesFlushedEvent event) {
+        onLikes(event.added(), event.deleted());
+    }
+
+    @EventListener
+    public void onFilmChanged(FilmChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        entries.forEach((key, entry) -> {
+            boolean affected = event.created()
+                    ? entry.filmIds().size() < key.count()
+                    : entry.filmIds().contains(event.filmId());
+            if (affected) {
+                markStale(key);
+            }
+        });
+        markLoadingStale();
+        scheduleDrain();
+    }
+
+    private void onLikes(List<LikeBatchItem> added, List<LikeBatchItem> deleted) {
+        if (!enabled || (added.isEmpty() && deleted.isEmpty())) {
+            return;
+        }
+        added.forEach(like -> pendingDeltas.merge(like.getFilmId(), 1, Integer::sum));
+        deleted.forEach(like -> pendingDeltas.merge(like.getFilmId(), -1, Integer::sum));
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            submit(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        Map<Integer, Integer> deltas = new HashMap<>();
+        for (Integer filmId : pendingDeltas.keySet()) {
+            Integer delta = pendingDeltas.remove(filmId);
+            if (delta != null && delta != 0) {
+                deltas.put(filmId, delta);
+            }
+        }
+        if (!deltas.isEmpty()) {
+            markAffected(deltas);
+        }
+        for (Key key : staleKeys) {
+            if (staleKeys.remove(key)) {
+                refresh(key);
+            }
+        }
+    }
+
+    private void markAffected(Map<Integer, Integer> deltas) {
+        markLoadingStale();
+        if (entries.isEmpty()) {
+            return;
+        }
+        Set<Integer> outsiders = new HashSet<>();
+        deltas.forEach((filmId, delta) -> {
+            if (delta > 0 && entries.values().stream().anyMatch(entry -> !entry.filmIds().contains(filmId))) {
+                outsiders.add(filmId);
+            }
+        });
+        Map<Integer, Integer> likesCounts = outsiders.isEmpty() ? Map.of() : filmStorage.findLikesCounts(outsiders);
+        entries.forEach((key, entry) -> {
+            for (Map.Entry<Integer, Integer> change : deltas.entrySet()) {
+                Integer filmId = change.getKey();
+                if (entry.filmIds().contains(filmId)
+                        || (change.getValue() > 0 && entry.admits(key.count(), filmId, likesCounts.get(filmId)))) {
+                    markStale(key);
+                    return;
+                }
+            }
+        });
+    }
+
+    // ключ, который считается впервые, не с чем сравнить — любое событие во время вычисления его затрагивает
+    private void markLoadingStale() {
+        inFlight.keySet().forEach(key -> {
+            if (!entries.containsKey(key)) {
+                markStale(key);
+            }
+        });
+    }
+
+    private void markStale(Key key) {
+        generations.merge(key, 1L, Long::sum);
+        staleKeys.add(key);
+    }
+
+    private void refresh(Key key) {
+        increment(refreshCounter);
+        load(key).join();
+    }
+
+    private CompletableFuture<Entry> load(Key key) {
+        CompletableFuture<Entry> created = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            return running;
+        }
+        try {
+            long startGeneration = generations.getOrDefault(key, 0L);
+            List<Film> films = filmService.getTopPopular(key.count(), null, null, key.withLikeIds());
+            Entry entry = Entry.of(films, serialize(films), System.nanoTime());
+            entries.put(key, entry);
+            evictIfFull();
+            created.complete(entry);
+            if (generations.getOrDefault(key, 0L) != startGeneration) {
+                staleKeys.add(key);
+                scheduleDrain();
+            }
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, created);
+        }
+        return created;
+    }
+
+    private void evictIfFull() {
+        while (entries.size() > maxEntries) {
+            entries.entrySet().stream()
+                    .min((first, second) -> Long.compare(first.getValue().computedAt(), second.getValue().computedAt()))
+                    .ifPresent(oldest -> entries.remove(oldest.getKey(), oldest.getValue()));
+        }
+    }
+
+    private void submit(Runnable task) {
+        refresher.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn("Не удалось обновить кэш популярных фильмов", e);
+            }
+        });
+    }
+
+    private byte[] serialize(List<Film> films) {
+        try {
+            return objectMapper.writeValueAsBytes(films);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("filmorate.popular.cache.requests")
+                .description("Обращения к кэшу /films/popular")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private record Key(int count, boolean withLikeIds) {
+    }
+
+    private record Entry(byte[] json, Set<Integer> filmIds, int lastLikes, int lastId, long computedAt) {
+
+        static Entry of(List<Film> films, byte[] json, long computedAt) {
+            Set<Integer> filmIds = new HashSet<>();
+            films.forEach(film -> filmIds.add(film.getId()));
+            Film last = films.isEmpty() ? null : films.get(films.size() - 1);
+            return new Entry(json, Set.copyOf(filmIds),
+                    last == null || last.getLikesCount() == null ? 0 : last.getLikesCount(),
+                    last == null ? Integer.MAX_VALUE : last.getId(),
+                    computedAt);
+        }
+
+        boolean admits(int count, Integer filmId, Integer likes) {
+            if (filmIds.size() < count) {
+                return true;
+            }
+            if (likes == null) {
+                return false;
+            }
+            return likes > lastLikes || (likes == lastLikes && filmId < lastId);
+        }
+    }
+}
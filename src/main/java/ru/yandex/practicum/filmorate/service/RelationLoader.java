@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.storage.jdbc.StatementCounter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Параллельная загрузка независимых связей в рамках одного запроса.
+ * <p>
+ * Scope.fork запускает загрузку на виртуальном потоке, не больше max-connections-per-request одновременно.
+ * Scope.close не оставляет загрузок после запроса: ещё не начавшиеся пропускаются,
+ * а уже идущие запросы дожидаются завершения и возвращают соединение в пул.
+ */
+@Component
+public class RelationLoader {
+
+    private final boolean concurrent;
+    private final int maxConnectionsPerRequest;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public RelationLoader(@Value("${filmorate.relations.concurrent.enabled:false}") boolean concurrent,
+                         @Value("${filmorate.relations.concurrent.max-connections-per-request:2}") int maxConnectionsPerRequest) {
+        this.concurrent = concurrent;
+        this.maxConnectionsPerRequest = maxConnectionsPerRequest;
+    }
+
+    public Scope open() {
+        return new Scope();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public class Scope implements AutoCloseable {
+
+        private final Semaphore connections = new Semaphore(maxConnectionsPerRequest);
+        private final StatementCounter statementCounter = StatementCounter.current();
+        private final List<Future<?>> forks = new ArrayList<>();
+        private volatile boolean closed;
+
+        private Scope() {
+        }
+
+        public <T> Supplier<T> fork(Supplier<T> load) {
+            // внутри транзакции запросы идут по её соединению, а поток-форк взял бы из пула ещё одно
+            if (!concurrent || TransactionSynchronizationManager.isActualTransactionActive()) {
+                T result = load.get();
+                return () -> result;
+            }
+            Future<T> future = executor.submit(() -> run(load));
+            forks.add(future);
+            return () -> join(future);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            boolean interrupted = false;
+            for (Future<?> future : forks) {
+                while (true) {
+                    try {
+                        future.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException | CancellationException e) {
+                        // результат уже никому не нужен, ошибку получил тот, кто его ждал
+                        break;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private <T> T run(Supplier<T> load) throws InterruptedException {
+            connections.acquire();
+            try {
+                if (closed) {
+                    throw new CancellationException("Запрос завершён до начала загрузки связей");
+                }
+                StatementCounter.attach(statementCounter);
+                try {
+                    return load.get();
+                } finally {
+                    StatementCounter.stop();
+                }
+            } finally {
+                connections.release();
+            }
+        }
+
+        private <T> T join(Future<T> future) {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Загрузка связей прервана", e);
+            }
+        }
+    }
+}
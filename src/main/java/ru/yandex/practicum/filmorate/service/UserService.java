@@ -1,41 +1,76 @@
 package ru.yandex.practicum.filmorate.service;
 
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.ConditionNotMetException;
+import ru.yandex.practicum.filmorate.model.CursorPage;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.existence.ExistenceIndex;
+import ru.yandex.practicum.filmorate.storage.friend.FriendRecommendations;
 import ru.yandex.practicum.filmorate.storage.friend.FriendStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
-@AllArgsConstructor
 public class UserService {
 
     private final UserStorage userStorage;
     private final FriendStorage friendStorage;
+    private final ExistenceIndex existenceIndex;
+    private final FriendRecommendations friendRecommendations;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_CHUNK_SIZE = 500;
+
+    public UserService(@Qualifier("userDbStorage") UserStorage userStorage,
+                       @Qualifier("friendGraphStorage") FriendStorage friendStorage,
+                       ExistenceIndex existenceIndex,
+                       FriendRecommendations friendRecommendations) {
+        this.userStorage = userStorage;
+        this.friendStorage = friendStorage;
+        this.existenceIndex = existenceIndex;
+        this.friendRecommendations = friendRecommendations;
+    }
 
     public Collection<User> findAll() {
         Collection<User> users = userStorage.findAll();
-        if (users.isEmpty()) {
-            return users;
-        }
-        Set<Integer> userIds = users.stream()
-                .map(User::getId)
-                .collect(Collectors.toSet());
-        Map<Integer, Set<Integer>> friendsByUserId = friendStorage.getFriendsByUserIds(userIds);
-        users.forEach(user -> user.setFriends(friendsByUserId.getOrDefault(user.getId(), new HashSet<>())));
+        fillFriends(users);
         return users;
     }
 
+    public void streamAll(Consumer<User> consumer) {
+        userStorage.findAllInChunks(STREAM_CHUNK_SIZE, users -> {
+            fillFriends(users);
+            users.forEach(consumer);
+        });
+    }
+
+    public CursorPage<User> findPage(Integer after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ConditionNotMetException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        List<User> users = new ArrayList<>(userStorage.findPage(after == null ? 0 : after, limit + 1));
+        Integer nextCursor = null;
+        if (users.size() > limit) {
+            users = users.subList(0, limit);
+            nextCursor = users.get(limit - 1).getId();
+        }
+        fillFriends(users);
+        return new CursorPage<>(users, nextCursor);
+    }
+
     public User create(User user) {
         if (user.getEmail() == null || user.getEmail().isBlank() || !user.getEmail().contains("@")) {
             log.warn("Валидация не пройдена при создании пользователя: эмейл должен быть указан и содержать @");
@@ -57,7 +92,9 @@ public class UserService {
             throw new ConditionNotMetException("Дата рождения не может быть в будущем");
         }
         log.info("Пользователь успешно создан: ID={}, login={}, email={}", user.getId(), user.getLogin(), user.getEmail());
-        return userStorage.create(user);
+        User created = userStorage.create(user);
+        existenceIndex.addUser(created.getId());
+        return created;
     }
 
     public User update(User newUser) {
@@ -91,7 +128,7 @@ public class UserService {
 
     public User findById(Integer id) {
         User user = userStorage.findById(id);
-        fillFriends(user);
+        user.setFriends(friendStorage.getFriends(id));
         return user;
     }
 
@@ -99,31 +136,53 @@ public class UserService {
         if (userId.equals(friendId)) {
             throw new IllegalArgumentException("Нельзя добавить самого себя в друзья");
         }
-        userStorage.findById(userId);
-        userStorage.findById(friendId);
+        existenceIndex.requireUser(userId);
+        existenceIndex.requireUser(friendId);
         friendStorage.addFriend(userId, friendId);
     }
 
     public void deleteFriend(Integer userId, Integer friendId) {
-        userStorage.findById(userId);
-        userStorage.findById(friendId);
+        existenceIndex.requireUser(userId);
+        existenceIndex.requireUser(friendId);
         friendStorage.deleteFriend(userId, friendId);
     }
 
     public Collection<User> getCommonFriends(Integer userId, Integer otherId) {
-        userStorage.findById(userId);
-        userStorage.findById(otherId);
+        existenceIndex.requireUser(userId);
+        existenceIndex.requireUser(otherId);
         Set<Integer> commonIds = friendStorage.getCommonFriendIds(userId, otherId);
         return userStorage.findByIds(commonIds);
     }
 
     public Collection<User> findAllFriends(Integer userId) {
-        userStorage.findById(userId);
+        existenceIndex.requireUser(userId);
         Set<Integer> friendIds = friendStorage.getFriends(userId);
         return userStorage.findByIds(friendIds);
     }
 
-    private void fillFriends(User user) {
-        user.setFriends(friendStorage.getFriends(user.getId()));
+    public List<User> getFriendRecommendations(Integer userId, int limit) {
+        if (limit < 1 || limit > FriendRecommendations.MAX_LIMIT) {
+            throw new ConditionNotMetException("Количество рекомендаций должно быть от 1 до " + FriendRecommendations.MAX_LIMIT);
+        }
+        existenceIndex.requireUser(userId);
+        List<Integer> recommendedIds = friendRecommendations.recommend(userId, limit);
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < recommendedIds.size(); i++) {
+            positions.put(recommendedIds.get(i), i);
+        }
+        return userStorage.findByIds(new HashSet<>(recommendedIds)).stream()
+                .sorted(Comparator.comparing(user -> positions.get(user.getId())))
+                .toList();
+    }
+
+    private void fillFriends(Collection<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Set<Integer> userIds = users.stream()
+                .map(User::getId)
+                .collect(Collectors.toSet());
+        Map<Integer, Set<Integer>> friendsByUserId = friendStorage.getFriendsByUserIds(userIds);
+        users.forEach(user -> user.setFriends(friendsByUserId.getOrDefault(user.getId(), new HashSet<>())));
     }
 }
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+public final class IdChunks {
+
+    public static final int CHUNK_SIZE = 1000;
+
+    private IdChunks() {
+    }
+
+    public static void forEach(Collection<Integer> ids, Consumer<Integer[]> action) {
+        List<Integer> chunk = new ArrayList<>(Math.min(ids.size(), CHUNK_SIZE));
+        for (Integer id : ids) {
+            chunk.add(id);
+            if (chunk.size() == CHUNK_SIZE) {
+                action.accept(chunk.toArray(Integer[]::new));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            action.accept(chunk.toArray(Integer[]::new));
+        }
+    }
+}
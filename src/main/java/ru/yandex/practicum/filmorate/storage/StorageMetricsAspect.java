@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Aspect
+@Component
+public class StorageMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public StorageMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.storage..*DbStorage.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodMeters methodMeters = meters.computeIfAbsent(method, this::register);
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            methodMeters.failure().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        methodMeters.success().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (result instanceof Collection<?> collection) {
+            methodMeters.rows().record(collection.size());
+        } else if (result instanceof Map<?, ?> map) {
+            methodMeters.rows().record(map.size());
+        }
+        return result;
+    }
+
+    private MethodMeters register(Method method) {
+        String storage = method.getDeclaringClass().getSimpleName();
+        String name = method.getName();
+        return new MethodMeters(
+                timer(storage, name, "success"),
+                timer(storage, name, "error"),
+                DistributionSummary.builder("filmorate.storage.rows")
+                        .description("Количество строк, возвращённых методом хранилища")
+                        .tag("storage", storage)
+                        .tag("method", name)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+
+    private Timer timer(String storage, String method, String outcome) {
+        return Timer.builder("filmorate.storage.calls")
+                .description("Время выполнения метода хранилища")
+                .tag("storage", storage)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+
+    private record MethodMeters(Timer success, Timer failure, DistributionSummary rows) {
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.storage.existence;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+@Slf4j
+@Component
+public class ExistenceIndex {
+
+    private final UserStorage userStorage;
+    private final FilmStorage filmStorage;
+    private final IdBitmap userIds = new IdBitmap();
+    private final IdBitmap filmIds = new IdBitmap();
+
+    public ExistenceIndex(@Qualifier("userDbStorage") UserStorage userStorage,
+                          @Qualifier("filmDbStorage") FilmStorage filmStorage) {
+        this.userStorage = userStorage;
+        this.filmStorage = filmStorage;
+    }
+
+    @PostConstruct
+    public void load() {
+        userStorage.forEachId(userIds::add);
+        filmStorage.forEachId(filmIds::add);
+        log.info("Индекс существования загружен: пользователей - {}, фильмов - {}", userIds.size(), filmIds.size());
+    }
+
+    public void addUser(Integer id) {
+        userIds.add(id);
+    }
+
+    public void addFilm(Integer id) {
+        filmIds.add(id);
+    }
+
+    public void requireUser(Integer id) {
+        if (!userIds.contains(id)) {
+            userStorage.findById(id);
+            userIds.add(id);
+        }
+    }
+
+    public void requireFilm(Integer id) {
+        if (!filmIds.contains(id)) {
+            filmStorage.findById(id);
+            filmIds.add(id);
+        }
+    }
+
+    public Set<Integer> existingUsers(Collection<Integer> ids) {
+        Set<Integer> existing = new HashSet<>();
+        Set<Integer> unknown = new HashSet<>();
+        for (Integer id : ids) {
+            (userIds.contains(id) ? existing : unknown).add(id);
+        }
+        Set<Integer> found = userStorage.findExistingIds(unknown);
+        found.forEach(userIds::add);
+        existing.addAll(found);
+        return existing;
+    }
+
+    public Set<Integer> existingFilms(Collection<Integer> ids) {
+        Set<Integer> existing = new HashSet<>();
+        Set<Integer> unknown = new HashSet<>();
+        for (Integer id : ids) {
+            (filmIds.contains(id) ? existing : unknown).add(id);
+        }
+        Set<Integer> found = filmStorage.findExistingIds(unknown);
+        found.forEach(filmIds::add);
+        existing.addAll(found);
+        return existing;
+    }
+}
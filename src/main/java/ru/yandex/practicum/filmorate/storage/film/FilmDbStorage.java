@@ -2,19 +2,34 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.mapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.mapper.FilmWithRelationsRowMapper;
+import ru.yandex.practicum.filmorate.storage.IdChunks;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 @Slf4j
 @Component
@@ -22,16 +37,20 @@ import java.util.Objects;
 public class FilmDbStorage implements FilmStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private final StorageVersions versions;
     private final FilmRowMapper filmRowMapper = new FilmRowMapper();
+    private final FilmWithRelationsRowMapper filmWithLikesRowMapper = new FilmWithRelationsRowMapper(true);
+    private final FilmWithRelationsRowMapper filmWithoutLikesRowMapper = new FilmWithRelationsRowMapper(false);
 
-    public FilmDbStorage(JdbcTemplate jdbcTemplate) {
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, StorageVersions versions) {
         this.jdbcTemplate = jdbcTemplate;
+        this.versions = versions;
     }
 
     @Override
     public Collection<Film> findAll() {
         String sql = """
-                SELECT f.id, f.name, f.description, f.releaseDate, f.duration,
+                SELECT f.id, f.name, f.description, f.releaseDate, f.duration, f.likes_count,
                        f.mpa_id, m.name AS mpa_name
                 FROM films AS f
                 JOIN mpa AS m ON f.mpa_id = m.id
@@ -40,18 +59,95 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
-    public Collection<Film> findTopPopular(int count) {
+    public Collection<Film> findPage(int afterId, int limit) {
         String sql = """
-                SELECT f.id, f.name, f.description, f.releaseDate, f.duration,
+                SELECT f.id, f.name, f.description, f.releaseDate, f.duration, f.likes_count,
                        f.mpa_id, m.name AS mpa_name
                 FROM films AS f
                 JOIN mpa AS m ON f.mpa_id = m.id
-                LEFT JOIN likes AS l ON f.id = l.film_id
-                GROUP BY f.id, f.name, f.description, f.releaseDate, f.duration, f.mpa_id, m.name
-                ORDER BY COUNT(l.user_id) DESC, f.id
+                WHERE f.id > ?
+                ORDER BY f.id
                 LIMIT ?
                 """;
-        return jdbcTemplate.query(sql, filmRowMapper, count);
+        return jdbcTemplate.query(sql, filmRowMapper, afterId, limit);
+    }
+
+    // курсор и запросы из chunkConsumer идут по одному соединению транзакции, а не берут второе из пула
+    @Override
+    @Transactional(readOnly = true)
+    public void findAllInChunks(int chunkSize, Consumer<List<Film>> chunkConsumer) {
+        String sql = """
+                SELECT f.id, f.name, f.description, f.releaseDate, f.duration, f.likes_count,
+                       f.mpa_id, m.name AS mpa_name
+                FROM films AS f
+                JOIN mpa AS m ON f.mpa_id = m.id
+                ORDER BY f.id
+                """;
+        List<Film> chunk = new ArrayList<>(chunkSize);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(chunkSize);
+            return ps;
+        }, rs -> {
+            chunk.add(filmRowMapper.mapRow(rs, rs.getRow()));
+            if (chunk.size() == chunkSize) {
+                chunkConsumer.accept(new ArrayList<>(chunk));
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+        }
+    }
+
+    @Override
+    public Collection<Film> findTopPopular(int count, Integer genreId, Integer year) {
+        String sql = """
+                SELECT f.id, f.name, f.description, f.releaseDate, f.duration, f.likes_count,
+                       f.mpa_id, m.name AS mpa_name
+                FROM films AS f
+                JOIN mpa AS m ON f.mpa_id = m.id
+                """;
+        List<Object> params = new ArrayList<>();
+        sql += popularFilter(genreId, year, params);
+        params.add(count);
+        return jdbcTemplate.query(sql, filmRowMapper, params.toArray());
+    }
+
+    @Override
+    public Collection<Film> findAllWithRelations(boolean withLikeIds) {
+        return jdbcTemplate.query(selectWithRelations(withLikeIds), withRelationsRowMapper(withLikeIds));
+    }
+
+    @Override
+    public Collection<Film> findTopPopularWithRelations(int count, Integer genreId, Integer year, boolean withLikeIds) {
+        List<Object> params = new ArrayList<>();
+        String sql = selectWithRelations(withLikeIds) + popularFilter(genreId, year, params);
+        params.add(count);
+        return jdbcTemplate.query(sql, withRelationsRowMapper(withLikeIds), params.toArray());
+    }
+
+    @Override
+    public Film findByIdWithRelations(Integer id) {
+        String sql = selectWithRelations(true) + "WHERE f.id = ?";
+        List<Film> films = jdbcTemplate.query(sql, filmWithLikesRowMapper, id);
+        if (films.isEmpty()) {
+            log.warn("Ошибка при поиске фильма: фильм с ID {} не найден", id);
+            throw new NotFoundException("Фильм с ID - " + id + " не найден");
+        }
+        return films.get(0);
+    }
+
+    @Override
+    public Collection<Film> findByIdsWithRelations(Collection<Integer> ids, boolean withLikeIds) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        String sql = selectWithRelations(withLikeIds) + "WHERE f.id = ANY(?)";
+        List<Film> films = new ArrayList<>(ids.size());
+        IdChunks.forEach(ids, chunk -> films.addAll(
+                jdbcTemplate.query(sql, withRelationsRowMapper(withLikeIds), (Object) chunk)));
+        return films;
     }
 
     @Override
@@ -69,9 +165,50 @@ public class FilmDbStorage implements FilmStorage {
         }, keyHolder);
         Integer id = Objects.requireNonNull(keyHolder.getKey()).intValue();
         film.setId(id);
+        film.setLikesCount(0);
+        versions.bump(StorageVersions.Scope.FILMS, id);
         return film;
     }
 
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        String sql = "INSERT INTO films (name, description, releaseDate, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Film film = films.get(i);
+                        ps.setString(1, film.getName());
+                        ps.setString(2, film.getDescription());
+                        ps.setObject(3, film.getReleaseDate());
+                        ps.setInt(4, film.getDuration());
+                        ps.setObject(5, film.getMpa() == null ? null : film.getMpa().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != films.size()) {
+            throw new IllegalStateException("Получено ключей - " + keys.size() + ", ожидалось - " + films.size());
+        }
+        List<Integer> ids = new ArrayList<>(films.size());
+        for (int i = 0; i < films.size(); i++) {
+            Integer id = ((Number) keys.get(i).values().iterator().next()).intValue();
+            films.get(i).setId(id);
+            films.get(i).setLikesCount(0);
+            ids.add(id);
+        }
+        versions.bump(StorageVersions.Scope.FILMS, ids);
+        return films;
+    }
+
     @Override
     public Film update(Film film) {
         String sql = "UPDATE films SET name = ?, description = ?, releaseDate = ?, duration = ?, mpa_id = ? WHERE id = ?";
@@ -87,13 +224,14 @@ public class FilmDbStorage implements FilmStorage {
             log.warn("Ошибка при обновлении фильма: фильм с ID {} не найден", film.getId());
             throw new NotFoundException("Фильм с ID - " + film.getId() + " не найден");
         }
+        versions.bump(StorageVersions.Scope.FILMS, film.getId());
         return film;
     }
 
     @Override
     public Film findById(Integer id) {
         String sql = """
-                SELECT f.id, f.name, f.description, f.releaseDate, f.duration,
+                SELECT f.id, f.name, f.description, f.releaseDate, f.duration, f.likes_count,
                        f.mpa_id, m.name AS mpa_name
                 FROM films AS f
                 JOIN mpa AS m ON f.mpa_id = m.id
@@ -107,4 +245,90 @@ public class FilmDbStorage implements FilmStorage {
         return films.get(0);
     }
 
+    @Override
+    public Collection<Film> findByIds(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        String sql = """
+                SELECT f.id, f.name, f.description, f.releaseDate, f.duration, f.likes_count,
+                       f.mpa_id, m.name AS mpa_name
+                FROM films AS f
+                JOIN mpa AS m ON f.mpa_id = m.id
+                WHERE f.id = ANY(?)
+                """;
+        List<Film> films = new ArrayList<>(ids.size());
+        IdChunks.forEach(ids, chunk -> films.addAll(jdbcTemplate.query(sql, filmRowMapper, (Object) chunk)));
+        return films;
+    }
+
+    @Override
+    public void forEachId(IntConsumer consumer) {
+        jdbcTemplate.query("SELECT id FROM films", rs -> {
+            consumer.accept(rs.getInt("id"));
+        });
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Set.of();
+        }
+        String sql = "SELECT id FROM films WHERE id = ANY(?)";
+        Set<Integer> existing = new HashSet<>();
+        IdChunks.forEach(ids, chunk -> existing.addAll(jdbcTemplate.queryForList(sql, Integer.class, (Object) chunk)));
+        return existing;
+    }
+
+    @Override
+    public Map<Integer, Integer> findLikesCounts(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Map.of();
+        }
+        String sql = "SELECT id, likes_count FROM films WHERE id = ANY(?)";
+        Map<Integer, Integer> counts = new HashMap<>();
+        IdChunks.forEach(ids, chunk -> jdbcTemplate.query(sql, rs -> {
+            counts.put(rs.getInt("id"), rs.getInt("likes_count"));
+        }, (Object) chunk));
+        return counts;
+    }
+
+    private String selectWithRelations(boolean withLikeIds) {
+        String likeIds = withLikeIds
+                ? "ARRAY(SELECT l.user_id FROM likes AS l WHERE l.film_id = f.id)"
+                : "NULL";
+        return """
+                SELECT f.id, f.name, f.description, f.releaseDate, f.duration, f.likes_count,
+                       f.mpa_id, m.name AS mpa_name,
+                       ARRAY(SELECT fg.genre_id FROM film_genres AS fg
+                             WHERE fg.film_id = f.id ORDER BY fg.genre_id) AS genre_ids,
+                       ARRAY(SELECT g.name FROM film_genres AS fg JOIN genres AS g ON g.id = fg.genre_id
+                             WHERE fg.film_id = f.id ORDER BY fg.genre_id) AS genre_names,
+                       %s AS like_ids
+                FROM films AS f
+                JOIN mpa AS m ON f.mpa_id = m.id
+                """.formatted(likeIds);
+    }
+
+    private String popularFilter(Integer genreId, Integer year, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (genreId != null) {
+            conditions.add("EXISTS (SELECT 1 FROM film_genres AS fg WHERE fg.film_id = f.id AND fg.genre_id = ?)");
+            params.add(genreId);
+        }
+        if (year != null) {
+            conditions.add("f.releaseDate >= ? AND f.releaseDate < ?");
+            params.add(LocalDate.of(year, 1, 1));
+            params.add(LocalDate.of(year + 1, 1, 1));
+        }
+        String where = conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + "\n";
+        return where + """
+                ORDER BY f.likes_count DESC, f.id
+                LIMIT ?
+                """;
+    }
+
+    private FilmWithRelationsRowMapper withRelationsRowMapper(boolean withLikeIds) {
+        return withLikeIds ? filmWithLikesRowMapper : filmWithoutLikesRowMapper;
+    }
 }
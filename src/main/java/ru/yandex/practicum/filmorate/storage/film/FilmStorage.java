@@ -3,16 +3,43 @@ package ru.yandex.practicum.filmorate.storage.film;
 import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 public interface FilmStorage {
 
     Collection<Film> findAll();
 
-    Collection<Film> findTopPopular(int count);
+    Collection<Film> findPage(int afterId, int limit);
+
+    void findAllInChunks(int chunkSize, Consumer<List<Film>> chunkConsumer);
+
+    Collection<Film> findTopPopular(int count, Integer genreId, Integer year);
+
+    Collection<Film> findAllWithRelations(boolean withLikeIds);
+
+    Collection<Film> findTopPopularWithRelations(int count, Integer genreId, Integer year, boolean withLikeIds);
+
+    Film findByIdWithRelations(Integer id);
+
+    Collection<Film> findByIdsWithRelations(Collection<Integer> ids, boolean withLikeIds);
 
     Film create(Film film);
 
+    List<Film> createAll(List<Film> films);
+
     Film update(Film film);
 
     Film findById(Integer id);
+
+    Collection<Film> findByIds(Collection<Integer> ids);
+
+    Set<Integer> findExistingIds(Collection<Integer> ids);
+
+    Map<Integer, Integer> findLikesCounts(Collection<Integer> ids);
+
+    void forEachId(IntConsumer consumer);
 }
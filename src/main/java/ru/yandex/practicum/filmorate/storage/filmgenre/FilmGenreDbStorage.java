@@ -5,24 +5,29 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.mapper.GenreRowMapper;
+import ru.yandex.practicum.filmorate.storage.IdChunks;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Component
 @Qualifier("filmGenreDbStorage")
 public class FilmGenreDbStorage implements FilmGenreStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private final StorageVersions versions;
     private final GenreRowMapper genreRowMapper = new GenreRowMapper();
 
-    public FilmGenreDbStorage(JdbcTemplate jdbcTemplate) {
+    public FilmGenreDbStorage(JdbcTemplate jdbcTemplate, StorageVersions versions) {
         this.jdbcTemplate = jdbcTemplate;
+        this.versions = versions;
     }
 
     @Override
@@ -42,28 +47,27 @@ public class FilmGenreDbStorage implements FilmGenreStorage {
         if (filmIds == null || filmIds.isEmpty()) {
             return Map.of();
         }
-        String placeholders = filmIds.stream().map(id -> "?").collect(Collectors.joining(", "));
         String sql = """
                 SELECT fg.film_id, g.id, g.name
                 FROM film_genres AS fg
                 JOIN genres AS g ON g.id = fg.genre_id
-                WHERE fg.film_id IN (%s)
-                """.formatted(placeholders);
-        Object[] args = filmIds.toArray();
+                WHERE fg.film_id = ANY(?)
+                """;
         Map<Integer, Set<Genre>> result = new HashMap<>();
-        jdbcTemplate.query(sql, rs -> {
+        IdChunks.forEach(filmIds, chunk -> jdbcTemplate.query(sql, rs -> {
             Integer filmId = rs.getInt("film_id");
             Genre genre = new Genre();
             genre.setId(rs.getInt("id"));
             genre.setName(rs.getString("name"));
             result.computeIfAbsent(filmId, id -> new HashSet<>()).add(genre);
-        }, args);
+        }, (Object) chunk));
         return result;
     }
 
     @Override
     public void setGenres(Integer filmId, Set<Genre> genres) {
         jdbcTemplate.update("DELETE FROM film_genres WHERE film_id = ?", filmId);
+        versions.bump(StorageVersions.Scope.FILMS, filmId);
         if (genres == null || genres.isEmpty()) {
             return;
         }
@@ -72,4 +76,24 @@ public class FilmGenreDbStorage implements FilmGenreStorage {
                 .toList();
         jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", batch);
     }
+
+    @Override
+    public void addGenres(Map<Integer, Set<Genre>> genresByFilmId) {
+        List<Object[]> batch = new ArrayList<>();
+        genresByFilmId.forEach((filmId, genres) -> {
+            if (genres == null) {
+                return;
+            }
+            genres.stream()
+                    .map(Genre::getId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .forEach(genreId -> batch.add(new Object[]{filmId, genreId}));
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", batch);
+        versions.bump(StorageVersions.Scope.FILMS, genresByFilmId.keySet());
+    }
 }
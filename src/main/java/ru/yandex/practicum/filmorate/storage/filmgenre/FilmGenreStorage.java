@@ -12,4 +12,6 @@ public interface FilmGenreStorage {
     Map<Integer, Set<Genre>> getGenresByFilmIds(Collection<Integer> filmIds);
 
     void setGenres(Integer filmId, Set<Genre> genres);
+
+    void addGenres(Map<Integer, Set<Genre>> genresByFilmId);
 }
@@ -3,6 +3,8 @@ package ru.yandex.practicum.filmorate.storage.friend;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.IdChunks;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
 import java.util.Collection;
 import java.util.HashMap;
@@ -10,28 +12,33 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
 
 @Component
 @Qualifier("friendDbStorage")
 public class FriendDbStorage implements FriendStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private final StorageVersions versions;
 
-    public FriendDbStorage(JdbcTemplate jdbcTemplate) {
+    public FriendDbStorage(JdbcTemplate jdbcTemplate, StorageVersions versions) {
         this.jdbcTemplate = jdbcTemplate;
+        this.versions = versions;
     }
 
     @Override
     public void addFriend(Integer userId, Integer friendId) {
         String sql = "MERGE INTO friends (user_id, friend_id) KEY(user_id, friend_id) VALUES (?, ?)";
         jdbcTemplate.update(sql, userId, friendId);
+        versions.bump(StorageVersions.Scope.USERS, userId);
     }
 
     @Override
     public void deleteFriend(Integer userId, Integer friendId) {
         String sql = "DELETE FROM friends WHERE user_id = ? AND friend_id = ?";
-        jdbcTemplate.update(sql, userId, friendId);
+        if (jdbcTemplate.update(sql, userId, friendId) > 0) {
+            versions.bump(StorageVersions.Scope.USERS, userId);
+        }
     }
 
     @Override
@@ -46,14 +53,13 @@ public class FriendDbStorage implements FriendStorage {
         if (userIds == null || userIds.isEmpty()) {
             return Map.of();
         }
-        String placeholders = userIds.stream().map(id -> "?").collect(Collectors.joining(", "));
-        String sql = "SELECT user_id, friend_id FROM friends WHERE user_id IN (%s)".formatted(placeholders);
+        String sql = "SELECT user_id, friend_id FROM friends WHERE user_id = ANY(?)";
         Map<Integer, Set<Integer>> result = new HashMap<>();
-        jdbcTemplate.query(sql, rs -> {
+        IdChunks.forEach(userIds, chunk -> jdbcTemplate.query(sql, rs -> {
             Integer userId = rs.getInt("user_id");
             Integer friendId = rs.getInt("friend_id");
             result.computeIfAbsent(userId, id -> new HashSet<>()).add(friendId);
-        }, userIds.toArray());
+        }, (Object) chunk));
         return result;
     }
 
@@ -68,4 +74,11 @@ public class FriendDbStorage implements FriendStorage {
         List<Integer> common = jdbcTemplate.queryForList(sql, Integer.class, userId, otherId);
         return new HashSet<>(common);
     }
+
+    @Override
+    public void forEachFriendship(BiConsumer<Integer, Integer> consumer) {
+        jdbcTemplate.query("SELECT user_id, friend_id FROM friends ORDER BY user_id, friend_id", rs -> {
+            consumer.accept(rs.getInt("user_id"), rs.getInt("friend_id"));
+        });
+    }
 }
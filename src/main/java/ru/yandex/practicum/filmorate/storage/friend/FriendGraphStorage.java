@@ -0,0 +1,231 @@
+package ru.yandex.practicum.filmorate.storage.friend;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Граф дружбы в памяти: для каждого пользователя хранится отсортированный массив id друзей.
+ * Массивы не изменяются после публикации — запись создаёт новую копию строки под общей блокировкой,
+ * поэтому чтение идёт без блокировок. Запись в БД и замена строки выполняются под блокировкой пользователя
+ * (по полосе на группу id), чтобы параллельные add/delete одной пары применялись в одном порядке. Версия пользователя повторно увеличивается после замены строки,
+ * иначе ETag, выданный между записью в БД и обновлением графа, закрепил бы старый список друзей.
+ */
+@Slf4j
+@Component
+@Qualifier("friendGraphStorage")
+public class FriendGraphStorage implements FriendStorage {
+
+    private static final int[] EMPTY = new int[0];
+    private static final int LOCK_STRIPES = 64;
+
+    private final FriendStorage friendStorage;
+    private final StorageVersions versions;
+    private final Object writeLock = new Object();
+    private final Object[] userLocks = new Object[LOCK_STRIPES];
+    private volatile AtomicReferenceArray<int[]> rows = new AtomicReferenceArray<>(0);
+
+    public FriendGraphStorage(@Qualifier("friendDbStorage") FriendStorage friendStorage, StorageVersions versions) {
+        this.friendStorage = friendStorage;
+        this.versions = versions;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            userLocks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        RowsBuilder builder = new RowsBuilder();
+        friendStorage.forEachFriendship(builder::add);
+        synchronized (writeLock) {
+            rows = builder.build();
+        }
+        log.info("Граф дружбы загружен: {} связей", builder.edges);
+    }
+
+    public int[] friendIds(int userId) {
+        AtomicReferenceArray<int[]> current = rows;
+        if (userId < 0 || userId >= current.length()) {
+            return EMPTY;
+        }
+        int[] row = current.get(userId);
+        return row == null ? EMPTY : row;
+    }
+
+    public static int intersectionSize(int[] first, int[] second) {
+        int[] count = new int[1];
+        forEachCommon(first, second, id -> count[0]++);
+        return count[0];
+    }
+
+    @Override
+    public void addFriend(Integer userId, Integer friendId) {
+        synchronized (userLock(userId)) {
+            friendStorage.addFriend(userId, friendId);
+            synchronized (writeLock) {
+                int[] row = friendIds(userId);
+                int position = Arrays.binarySearch(row, friendId);
+                if (position >= 0) {
+                    return;
+                }
+                int insertAt = -position - 1;
+                int[] updated = new int[row.length + 1];
+                System.arraycopy(row, 0, updated, 0, insertAt);
+                updated[insertAt] = friendId;
+                System.arraycopy(row, insertAt, updated, insertAt + 1, row.length - insertAt);
+                ensureCapacity(userId).set(userId, updated);
+            }
+        }
+        versions.bump(StorageVersions.Scope.USERS, userId);
+    }
+
+    @Override
+    public void deleteFriend(Integer userId, Integer friendId) {
+        synchronized (userLock(userId)) {
+            friendStorage.deleteFriend(userId, friendId);
+            synchronized (writeLock) {
+                int[] row = friendIds(userId);
+                int position = Arrays.binarySearch(row, friendId);
+                if (position < 0) {
+                    return;
+                }
+                int[] updated = new int[row.length - 1];
+                System.arraycopy(row, 0, updated, 0, position);
+                System.arraycopy(row, position + 1, updated, position, row.length - position - 1);
+                rows.set(userId, updated);
+            }
+        }
+        versions.bump(StorageVersions.Scope.USERS, userId);
+    }
+
+    @Override
+    public Set<Integer> getFriends(Integer userId) {
+        return toSet(friendIds(userId));
+    }
+
+    @Override
+    public Map<Integer, Set<Integer>> getFriendsByUserIds(Collection<Integer> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Integer, Set<Integer>> result = new HashMap<>();
+        for (Integer userId : userIds) {
+            int[] row = friendIds(userId);
+            if (row.length > 0) {
+                result.put(userId, toSet(row));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Integer> getCommonFriendIds(Integer userId, Integer otherId) {
+        Set<Integer> common = new HashSet<>();
+        forEachCommon(friendIds(userId), friendIds(otherId), common::add);
+        return common;
+    }
+
+    @Override
+    public void forEachFriendship(BiConsumer<Integer, Integer> consumer) {
+        AtomicReferenceArray<int[]> current = rows;
+        for (int userId = 0; userId < current.length(); userId++) {
+            int[] row = current.get(userId);
+            if (row != null) {
+                for (int friendId : row) {
+                    consumer.accept(userId, friendId);
+                }
+            }
+        }
+    }
+
+    private static void forEachCommon(int[] first, int[] second, IntConsumer consumer) {
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                consumer.accept(first[i]);
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private Object userLock(int userId) {
+        return userLocks[Math.floorMod(userId, LOCK_STRIPES)];
+    }
+
+    private AtomicReferenceArray<int[]> ensureCapacity(int userId) {
+        AtomicReferenceArray<int[]> current = rows;
+        if (userId < current.length()) {
+            return current;
+        }
+        AtomicReferenceArray<int[]> grown = new AtomicReferenceArray<>(Math.max(userId + 1, current.length() * 2));
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        rows = grown;
+        return grown;
+    }
+
+    private static Set<Integer> toSet(int[] row) {
+        Set<Integer> result = new HashSet<>(row.length * 2);
+        for (int id : row) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    private static class RowsBuilder {
+
+        private int[][] rows = new int[16][];
+        private int[] sizes = new int[16];
+        private int maxUserId = -1;
+        private long edges;
+
+        void add(Integer userId, Integer friendId) {
+            if (userId >= rows.length) {
+                int length = Math.max(userId + 1, rows.length * 2);
+                rows = Arrays.copyOf(rows, length);
+                sizes = Arrays.copyOf(sizes, length);
+            }
+            int[] row = rows[userId];
+            if (row == null) {
+                row = new int[4];
+            } else if (sizes[userId] == row.length) {
+                row = Arrays.copyOf(row, row.length * 2);
+            }
+            row[sizes[userId]++] = friendId;
+            rows[userId] = row;
+            maxUserId = Math.max(maxUserId, userId);
+            edges++;
+        }
+
+        AtomicReferenceArray<int[]> build() {
+            AtomicReferenceArray<int[]> result = new AtomicReferenceArray<>(maxUserId + 1);
+            for (int userId = 0; userId <= maxUserId; userId++) {
+                if (rows[userId] != null) {
+                    int[] row = Arrays.copyOf(rows[userId], sizes[userId]);
+                    Arrays.sort(row);
+                    result.set(userId, row);
+                }
+            }
+            return result;
+        }
+    }
+}
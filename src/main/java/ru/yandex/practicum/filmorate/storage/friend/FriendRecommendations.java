@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage.friend;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Рекомендации друзей по числу общих друзей (обход графа на два шага).
+ * Результат кэшируется вместе со ссылками на прочитанные строки графа: граф копирует строку
+ * при каждом addFriend/deleteFriend, поэтому смена ссылки означает, что запись устарела.
+ */
+@Component
+public class FriendRecommendations {
+
+    public static final int MAX_LIMIT = 100;
+
+    private final FriendGraphStorage friendGraph;
+    private final int cacheSize;
+    private final Map<Integer, Entry> cache = new ConcurrentHashMap<>();
+
+    public FriendRecommendations(FriendGraphStorage friendGraph,
+                                 @Value("${filmorate.friends.recommendations.cache-size:10000}") int cacheSize) {
+        this.friendGraph = friendGraph;
+        this.cacheSize = cacheSize;
+    }
+
+    public List<Integer> recommend(int userId, int limit) {
+        int[] friends = friendGraph.friendIds(userId);
+        Entry entry = cache.get(userId);
+        if (entry == null || !isCurrent(entry, friends)) {
+            entry = compute(userId, friends);
+            if (cache.size() >= cacheSize) {
+                Iterator<Integer> keys = cache.keySet().iterator();
+                if (keys.hasNext()) {
+                    cache.remove(keys.next());
+                }
+            }
+            cache.put(userId, entry);
+        }
+        List<Integer> ranked = entry.rankedIds();
+        return ranked.subList(0, Math.min(limit, ranked.size()));
+    }
+
+    private Entry compute(int userId, int[] friends) {
+        int[][] friendRows = new int[friends.length][];
+        int total = 0;
+        for (int i = 0; i < friends.length; i++) {
+            friendRows[i] = friendGraph.friendIds(friends[i]);
+            total += friendRows[i].length;
+        }
+        int[] candidates = new int[total];
+        int size = 0;
+        for (int[] row : friendRows) {
+            for (int candidate : row) {
+                if (candidate != userId && Arrays.binarySearch(friends, candidate) < 0) {
+                    candidates[size++] = candidate;
+                }
+            }
+        }
+        Arrays.sort(candidates, 0, size);
+
+        PriorityQueue<int[]> top = new PriorityQueue<>(MAX_LIMIT + 1, (a, b) -> a[1] != b[1]
+                ? Integer.compare(a[1], b[1])
+                : Integer.compare(b[0], a[0]));
+        int i = 0;
+        while (i < size) {
+            int candidate = candidates[i];
+            int mutual = 0;
+            while (i < size && candidates[i] == candidate) {
+                mutual++;
+                i++;
+            }
+            top.offer(new int[]{candidate, mutual});
+            if (top.size() > MAX_LIMIT) {
+                top.poll();
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ranked.add(top.poll()[0]);
+        }
+        Collections.reverse(ranked);
+        return new Entry(friends, friendRows, List.copyOf(ranked));
+    }
+
+    private boolean isCurrent(Entry entry, int[] friends) {
+        if (entry.friends() != friends) {
+            return false;
+        }
+        for (int i = 0; i < friends.length; i++) {
+            if (entry.friendRows()[i] != friendGraph.friendIds(friends[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record Entry(int[] friends, int[][] friendRows, List<Integer> rankedIds) {
+    }
+}
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage.friend;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 public interface FriendStorage {
     void addFriend(Integer userId, Integer friendId);
@@ -14,4 +15,6 @@ public interface FriendStorage {
     Map<Integer, Set<Integer>> getFriendsByUserIds(Collection<Integer> userIds);
 
     Set<Integer> getCommonFriendIds(Integer userId, Integer otherId);
+
+    void forEachFriendship(BiConsumer<Integer, Integer> consumer);
 }
@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.storage.genre;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@Qualifier("genreCachedStorage")
+public class GenreCachedStorage implements GenreStorage {
+
+    private static final Snapshot EMPTY = new Snapshot(List.of(), Map.of());
+
+    private final GenreStorage genreStorage;
+    private final StorageVersions versions;
+    private final long reloadIntervalNanos;
+    private volatile Snapshot snapshot = EMPTY;
+    private volatile long loadedAt;
+
+    public GenreCachedStorage(@Qualifier("genreDbStorage") GenreStorage genreStorage,
+                              StorageVersions versions,
+                              @Value("${filmorate.dictionaries.reload-interval:10s}") Duration reloadInterval) {
+        this.genreStorage = genreStorage;
+        this.versions = versions;
+        this.reloadIntervalNanos = reloadInterval.toNanos();
+    }
+
+    @PostConstruct
+    public synchronized void refresh() {
+        List<Genre> genres = genreStorage.findAll().stream()
+                .sorted(Comparator.comparing(Genre::getId))
+                .toList();
+        Map<Integer, Genre> genresById = genres.stream()
+                .collect(Collectors.toUnmodifiableMap(Genre::getId, Function.identity()));
+        Snapshot previous = snapshot;
+        snapshot = new Snapshot(genres, genresById);
+        loadedAt = System.nanoTime();
+        if (previous != EMPTY && !previous.genres().equals(genres)) {
+            versions.bumpAll(StorageVersions.Scope.GENRES);
+        }
+        log.info("Справочник жанров загружен: {} записей", genres.size());
+    }
+
+    @Override
+    public Collection<Genre> findAll() {
+        return snapshot.genres();
+    }
+
+    @Override
+    public Genre findById(Integer id) {
+        Genre genre = snapshot.genresById().get(id);
+        if (genre == null) {
+            genre = reloadOnMiss().genresById().get(id);
+        }
+        if (genre == null) {
+            log.warn("Жанр с ID {} не найден", id);
+            throw new NotFoundException("Жанр с ID - " + id + " не найден");
+        }
+        return genre;
+    }
+
+    @Override
+    public void validateIds(Set<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        Snapshot current = snapshot;
+        if (!current.genresById().keySet().containsAll(ids)) {
+            current = reloadOnMiss();
+        }
+        for (Integer id : ids) {
+            if (!current.genresById().containsKey(id)) {
+                log.warn("Жанр с ID {} не найден", id);
+                throw new NotFoundException("Жанр с ID - " + id + " не найден");
+            }
+        }
+    }
+
+    // неизвестный id перечитывает справочник не чаще раза в reloadInterval, иначе сразу 404 из кэша
+    private Snapshot reloadOnMiss() {
+        Snapshot current = snapshot;
+        if (System.nanoTime() - loadedAt < reloadIntervalNanos) {
+            return current;
+        }
+        synchronized (this) {
+            if (System.nanoTime() - loadedAt >= reloadIntervalNanos) {
+                refresh();
+            }
+        }
+        return snapshot;
+    }
+
+    private record Snapshot(List<Genre> genres, Map<Integer, Genre> genresById) {
+    }
+}
@@ -7,12 +7,12 @@ import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.mapper.GenreRowMapper;
+import ru.yandex.practicum.filmorate.storage.IdChunks;
 
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -48,11 +48,9 @@ public class GenreDbStorage implements GenreStorage {
         if (ids == null || ids.isEmpty()) {
             return;
         }
-        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
-        String sql = "SELECT id FROM genres WHERE id IN (%s)".formatted(placeholders);
-        List<Integer> found = jdbcTemplate.queryForList(sql, Integer.class, ids.toArray());
+        String sql = "SELECT id FROM genres WHERE id = ANY(?)";
         Set<Integer> missing = new HashSet<>(ids);
-        missing.removeAll(found);
+        IdChunks.forEach(ids, chunk -> missing.removeAll(jdbcTemplate.queryForList(sql, Integer.class, (Object) chunk)));
         if (!missing.isEmpty()) {
             Integer missingId = missing.iterator().next();
             log.warn("Жанр с ID {} не найден", missingId);
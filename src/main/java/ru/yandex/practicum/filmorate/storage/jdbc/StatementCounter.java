@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.storage.jdbc;
+
+import java.util.concurrent.TimeUnit;
+
+public final class StatementCounter {
+
+    private static final ThreadLocal<StatementCounter> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long nanos;
+
+    private StatementCounter() {
+    }
+
+    public static StatementCounter start() {
+        StatementCounter counter = new StatementCounter();
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    public static StatementCounter current() {
+        return CURRENT.get();
+    }
+
+    public static void attach(StatementCounter counter) {
+        if (counter != null) {
+            CURRENT.set(counter);
+        }
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    static void record(long elapsedNanos) {
+        StatementCounter counter = CURRENT.get();
+        if (counter != null) {
+            counter.add(elapsedNanos);
+        }
+    }
+
+    private synchronized void add(long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+    }
+
+    public synchronized int getStatements() {
+        return statements;
+    }
+
+    public synchronized long getTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -1,37 +1,100 @@
 package ru.yandex.practicum.filmorate.storage.like;
 
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
+import ru.yandex.practicum.filmorate.storage.IdChunks;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
 
 @Component
 @Qualifier("likeDbStorage")
 public class LikeDbStorage implements LikeStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private final StorageVersions versions;
 
-    public LikeDbStorage(JdbcTemplate jdbcTemplate) {
+    public LikeDbStorage(JdbcTemplate jdbcTemplate, StorageVersions versions) {
         this.jdbcTemplate = jdbcTemplate;
+        this.versions = versions;
     }
 
     @Override
-    public void addLike(Integer filmId, Integer userId) {
-        String sql = "MERGE INTO likes (user_id, film_id) KEY(user_id, film_id) VALUES (?, ?)";
-        jdbcTemplate.update(sql, userId, filmId);
+    @Transactional
+    public boolean addLike(Integer filmId, Integer userId) {
+        String sql = """
+                INSERT INTO likes (user_id, film_id)
+                SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM likes WHERE user_id = ? AND film_id = ?)
+                """;
+        int inserted;
+        try {
+            inserted = jdbcTemplate.update(sql, userId, filmId, userId, filmId);
+        } catch (DuplicateKeyException e) {
+            // параллельный запрос уже вставил этот лайк и сам увеличил счётчик
+            inserted = 0;
+        }
+        if (inserted > 0) {
+            jdbcTemplate.update("UPDATE films SET likes_count = likes_count + 1 WHERE id = ?", filmId);
+            versions.bump(StorageVersions.Scope.FILMS, filmId);
+        }
+        return inserted > 0;
+    }
+
+    @Override
+    @Transactional
+    public List<LikeBatchItem> addLikes(List<LikeBatchItem> likes) {
+        if (likes.isEmpty()) {
+            return List.of();
+        }
+        String sql = """
+                INSERT INTO likes (user_id, film_id)
+                SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM likes WHERE user_id = ? AND film_id = ?)
+                """;
+        List<Object[]> batch = likes.stream()
+                .map(like -> new Object[]{like.getUserId(), like.getFilmId(), like.getUserId(), like.getFilmId()})
+                .toList();
+        int[] inserted = jdbcTemplate.batchUpdate(sql, batch);
+        List<LikeBatchItem> added = changedItems(likes, inserted);
+        adjustLikesCount(added, 1);
+        return added;
     }
 
     @Override
-    public void deleteLike(Integer filmId, Integer userId) {
+    @Transactional
+    public boolean deleteLike(Integer filmId, Integer userId) {
         String sql = "DELETE FROM likes WHERE user_id = ? AND film_id = ?";
-        jdbcTemplate.update(sql, userId, filmId);
+        int deleted = jdbcTemplate.update(sql, userId, filmId);
+        if (deleted > 0) {
+            jdbcTemplate.update("UPDATE films SET likes_count = likes_count - 1 WHERE id = ?", filmId);
+            versions.bump(StorageVersions.Scope.FILMS, filmId);
+        }
+        return deleted > 0;
+    }
+
+    @Override
+    @Transactional
+    public List<LikeBatchItem> deleteLikes(List<LikeBatchItem> likes) {
+        if (likes.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> batch = likes.stream()
+                .map(like -> new Object[]{like.getUserId(), like.getFilmId()})
+                .toList();
+        int[] deleted = jdbcTemplate.batchUpdate("DELETE FROM likes WHERE user_id = ? AND film_id = ?", batch);
+        List<LikeBatchItem> removed = changedItems(likes, deleted);
+        adjustLikesCount(removed, -1);
+        return removed;
     }
 
     @Override
@@ -46,15 +109,70 @@ public class LikeDbStorage implements LikeStorage {
         if (filmIds == null || filmIds.isEmpty()) {
             return Map.of();
         }
-        String placeholders = filmIds.stream().map(id -> "?").collect(Collectors.joining(", "));
-        String sql = "SELECT film_id, user_id FROM likes WHERE film_id IN (%s)".formatted(placeholders);
-        Object[] args = filmIds.toArray();
+        String sql = "SELECT film_id, user_id FROM likes WHERE film_id = ANY(?)";
         Map<Integer, Set<Integer>> result = new HashMap<>();
-        jdbcTemplate.query(sql, rs -> {
+        IdChunks.forEach(filmIds, chunk -> jdbcTemplate.query(sql, rs -> {
             Integer filmId = rs.getInt("film_id");
             Integer userId = rs.getInt("user_id");
             result.computeIfAbsent(filmId, id -> new HashSet<>()).add(userId);
-        }, args);
+        }, (Object) chunk));
         return result;
     }
+
+    @Override
+    public Map<Integer, Integer> getLikesCounts() {
+        String sql = """
+                SELECT f.id, COUNT(l.user_id) AS likes
+                FROM films AS f
+                LEFT JOIN likes AS l ON f.id = l.film_id
+                GROUP BY f.id
+                """;
+        Map<Integer, Integer> result = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            result.put(rs.getInt("id"), rs.getInt("likes"));
+        });
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public int recountLikes() {
+        String sql = """
+                UPDATE films AS f
+                SET likes_count = (SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.id)
+                WHERE f.likes_count <> (SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.id)
+                """;
+        int updated = jdbcTemplate.update(sql);
+        if (updated > 0) {
+            versions.bumpAll(StorageVersions.Scope.FILMS);
+        }
+        return updated;
+    }
+
+    @Override
+    public void forEachLike(BiConsumer<Integer, Integer> consumer) {
+        jdbcTemplate.query("SELECT film_id, user_id FROM likes", rs -> {
+            consumer.accept(rs.getInt("film_id"), rs.getInt("user_id"));
+        });
+    }
+
+    private List<LikeBatchItem> changedItems(List<LikeBatchItem> likes, int[] updateCounts) {
+        List<LikeBatchItem> changed = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] > 0) {
+                changed.add(likes.get(i));
+            }
+        }
+        return changed;
+    }
+
+    private void adjustLikesCount(List<LikeBatchItem> changed, int sign) {
+        Map<Integer, Integer> changesByFilmId = new HashMap<>();
+        changed.forEach(like -> changesByFilmId.merge(like.getFilmId(), 1, Integer::sum));
+        List<Object[]> counters = changesByFilmId.entrySet().stream()
+                .map(entry -> new Object[]{sign * entry.getValue(), entry.getKey()})
+                .toList();
+        jdbcTemplate.batchUpdate("UPDATE films SET likes_count = likes_count + ? WHERE id = ?", counters);
+        versions.bump(StorageVersions.Scope.FILMS, changesByFilmId.keySet());
+    }
 }
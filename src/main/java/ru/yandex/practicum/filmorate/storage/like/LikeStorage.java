@@ -1,15 +1,29 @@
 package ru.yandex.practicum.filmorate.storage.like;
 
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
+
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 public interface LikeStorage {
-    void addLike(Integer filmId, Integer userId);
+    boolean addLike(Integer filmId, Integer userId);
+
+    boolean deleteLike(Integer filmId, Integer userId);
+
+    List<LikeBatchItem> addLikes(List<LikeBatchItem> likes);
 
-    void deleteLike(Integer filmId, Integer userId);
+    List<LikeBatchItem> deleteLikes(List<LikeBatchItem> likes);
 
     Set<Integer> getLikes(Integer filmId);
 
     Map<Integer, Set<Integer>> getLikesByFilmIds(Collection<Integer> filmIds);
+
+    Map<Integer, Integer> getLikesCounts();
+
+    int recountLikes();
+
+    void forEachLike(BiConsumer<Integer, Integer> consumer);
 }
@@ -0,0 +1,285 @@
+package ru.yandex.practicum.filmorate.storage.like;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Отложенная запись лайков. При filmorate.likes.write-behind.enabled=false просто делегирует в likeDbStorage.
+ * <p>
+ * Во включённом режиме addLike/deleteLike только кладут событие в очередь и возвращают false,
+ * по каждой паре (фильм, пользователь) хранится последнее событие, так что лайк и следующий за ним
+ * дизлайк превращаются в один DELETE. Очередь сбрасывается пакетами по размеру batch-size и по таймеру
+ * flush-interval, а также при остановке приложения. Подтверждённые, но ещё не сброшенные события
+ * теряются при аварийном завершении процесса, и до сброса чтения их не видят.
+ * Пакетные операции и пересчёт сначала сбрасывают очередь, чтобы сохранить порядок.
+ * Пакет пишется одной транзакцией: при ошибке он целиком возвращается в очередь.
+ * LikesFlushedEvent публикуется после фиксации; ошибка слушателя только пишется в лог —
+ * записанный пакет в очередь не возвращается.
+ * <p>
+ * H2 без DB_CLOSE_ON_EXIT=FALSE закрывает базу собственным shutdown hook раньше, чем сработает сброс
+ * при остановке, поэтому с таким адресом пула включённый режим не запускается.
+ */
+@Slf4j
+@Component
+@Qualifier("likeWriteBehindStorage")
+public class LikeWriteBehindStorage implements LikeStorage, MeterBinder {
+
+    private final LikeStorage likeStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int capacity;
+    private final Duration flushInterval;
+    private final Map<LikeBatchItem, Boolean> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+    private Counter flushedCounter;
+
+    public LikeWriteBehindStorage(@Qualifier("likeDbStorage") LikeStorage likeStorage,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager,
+                                  DataSource dataSource,
+                                  @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                                  @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+                                  @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                                  @Value("${filmorate.likes.write-behind.flush-interval:1s}") Duration flushInterval) {
+        this.likeStorage = likeStorage;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.flushInterval = flushInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        requireShutdownFlush();
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("likes-write-behind")
+                .daemon(true)
+                .factory());
+        long intervalMs = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Отложенная запись лайков включена: пакет {}, ёмкость {}, интервал {}", batchSize, capacity, flushInterval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        log.info("Очередь лайков сброшена при остановке");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.likes.write_behind.queue_depth", pending, Map::size)
+                .description("События лайков, ожидающие записи в БД")
+                .register(registry);
+        flushedCounter = Counter.builder("filmorate.likes.write_behind.flushed")
+                .description("События лайков, записанные в БД")
+                .register(registry);
+    }
+
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    @Override
+    public boolean addLike(Integer filmId, Integer userId) {
+        if (!enabled) {
+            return likeStorage.addLike(filmId, userId);
+        }
+        enqueue(new LikeBatchItem(filmId, userId), true);
+        return false;
+    }
+
+    @Override
+    public boolean deleteLike(Integer filmId, Integer userId) {
+        if (!enabled) {
+            return likeStorage.deleteLike(filmId, userId);
+        }
+        enqueue(new LikeBatchItem(filmId, userId), false);
+        return false;
+    }
+
+    @Override
+    public List<LikeBatchItem> addLikes(List<LikeBatchItem> likes) {
+        flushIfEnabled();
+        return likeStorage.addLikes(likes);
+    }
+
+    @Override
+    public List<LikeBatchItem> deleteLikes(List<LikeBatchItem> likes) {
+        flushIfEnabled();
+        return likeStorage.deleteLikes(likes);
+    }
+
+    @Override
+    public Set<Integer> getLikes(Integer filmId) {
+        return likeStorage.getLikes(filmId);
+    }
+
+    @Override
+    public Map<Integer, Set<Integer>> getLikesByFilmIds(Collection<Integer> filmIds) {
+        return likeStorage.getLikesByFilmIds(filmIds);
+    }
+
+    @Override
+    public Map<Integer, Integer> getLikesCounts() {
+        flushIfEnabled();
+        return likeStorage.getLikesCounts();
+    }
+
+    @Override
+    public int recountLikes() {
+        flushIfEnabled();
+        return likeStorage.recountLikes();
+    }
+
+    @Override
+    public void forEachLike(BiConsumer<Integer, Integer> consumer) {
+        flushIfEnabled();
+        likeStorage.forEachLike(consumer);
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (!pending.isEmpty()) {
+                List<LikeBatchItem> adds = new ArrayList<>();
+                List<LikeBatchItem> deletes = new ArrayList<>();
+                for (LikeBatchItem like : pending.keySet()) {
+                    Boolean add = pending.remove(like);
+                    if (add == null) {
+                        continue;
+                    }
+                    (add ? adds : deletes).add(like);
+                    if (adds.size() + deletes.size() == batchSize) {
+                        break;
+                    }
+                }
+                write(adds, deletes);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(List<LikeBatchItem> adds, List<LikeBatchItem> deletes) {
+        List<List<LikeBatchItem>> written;
+        try {
+            // вставки и удаления фиксируются вместе: иначе при повторе уже записанные лайки
+            // вернутся пустым списком и не попадут в LikesFlushedEvent
+            written = transactionTemplate.execute(status ->
+                    List.of(likeStorage.addLikes(adds), likeStorage.deleteLikes(deletes)));
+        } catch (RuntimeException e) {
+            // возвращаем события в очередь, если за это время не пришло более новое
+            adds.forEach(like -> pending.putIfAbsent(like, true));
+            deletes.forEach(like -> pending.putIfAbsent(like, false));
+            throw e;
+        }
+        if (flushedCounter != null) {
+            flushedCounter.increment(adds.size() + deletes.size());
+        }
+        try {
+            eventPublisher.publishEvent(new LikesFlushedEvent(written.get(0), written.get(1)));
+        } catch (RuntimeException e) {
+            log.error("Не удалось разослать записанный пакет лайков: добавлено - {}, удалено - {}",
+                    written.get(0).size(), written.get(1).size(), e);
+        }
+    }
+
+    private void requireShutdownFlush() {
+        String url;
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return;
+            }
+            url = dataSource.unwrap(HikariDataSource.class).getJdbcUrl();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Не удалось определить адрес базы для отложенной записи лайков", e);
+        }
+        if (url != null && url.startsWith("jdbc:h2:") && !url.toUpperCase().contains("DB_CLOSE_ON_EXIT=FALSE")) {
+            throw new IllegalStateException("Отложенная запись лайков не сбросит очередь при остановке: "
+                    + "для H2 в spring.datasource.url нужен DB_CLOSE_ON_EXIT=FALSE, адрес - " + url);
+        }
+    }
+
+    private void enqueue(LikeBatchItem like, boolean add) {
+        pending.put(like, add);
+        int depth = pending.size();
+        if (depth >= capacity) {
+            flush();
+        } else if (depth >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    flushRequested.set(false);
+                    flushQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+                flush();
+            }
+        }
+    }
+
+    private void flushIfEnabled() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось сбросить очередь лайков, повтор при следующем сбросе", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage.like;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.likes.recount-on-startup", havingValue = "true")
+public class LikesCountRecount implements ApplicationRunner {
+
+    private final LikeStorage likeStorage;
+
+    public LikesCountRecount(@Qualifier("likeDbStorage") LikeStorage likeStorage) {
+        this.likeStorage = likeStorage;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int fixed = likeStorage.recountLikes();
+        log.info("Пересчёт счётчиков лайков завершён: исправлено фильмов - {}", fixed);
+    }
+}
@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.storage.like;
+
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
+
+import java.util.List;
+
+public record LikesFlushedEvent(List<LikeBatchItem> added, List<LikeBatchItem> deleted) {
+}
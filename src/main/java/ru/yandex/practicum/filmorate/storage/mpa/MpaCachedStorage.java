@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.storage.mpa;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@Qualifier("mpaCachedStorage")
+public class MpaCachedStorage implements MpaStorage {
+
+    private static final Snapshot EMPTY = new Snapshot(List.of(), Map.of());
+
+    private final MpaStorage mpaStorage;
+    private final StorageVersions versions;
+    private final long reloadIntervalNanos;
+    private volatile Snapshot snapshot = EMPTY;
+    private volatile long loadedAt;
+
+    public MpaCachedStorage(@Qualifier("mpaDbStorage") MpaStorage mpaStorage,
+                            StorageVersions versions,
+                            @Value("${filmorate.dictionaries.reload-interval:10s}") Duration reloadInterval) {
+        this.mpaStorage = mpaStorage;
+        this.versions = versions;
+        this.reloadIntervalNanos = reloadInterval.toNanos();
+    }
+
+    @PostConstruct
+    public synchronized void refresh() {
+        List<Mpa> mpaList = mpaStorage.findAll().stream()
+                .sorted(Comparator.comparing(Mpa::getId))
+                .toList();
+        Map<Integer, Mpa> mpaById = mpaList.stream()
+                .collect(Collectors.toUnmodifiableMap(Mpa::getId, Function.identity()));
+        Snapshot previous = snapshot;
+        snapshot = new Snapshot(mpaList, mpaById);
+        loadedAt = System.nanoTime();
+        if (previous != EMPTY && !previous.mpaList().equals(mpaList)) {
+            versions.bumpAll(StorageVersions.Scope.MPA);
+        }
+        log.info("Справочник MPA загружен: {} записей", mpaList.size());
+    }
+
+    @Override
+    public Collection<Mpa> findAll() {
+        return snapshot.mpaList();
+    }
+
+    @Override
+    public Mpa findById(Integer id) {
+        Mpa mpa = snapshot.mpaById().get(id);
+        if (mpa == null) {
+            mpa = reloadOnMiss().mpaById().get(id);
+        }
+        if (mpa == null) {
+            log.warn("MPA с ID {} не найден", id);
+            throw new NotFoundException("MPA с ID - " + id + " не найден");
+        }
+        return mpa;
+    }
+
+    // промах по id перечитывает таблицу не чаще раза в reloadInterval
+    private Snapshot reloadOnMiss() {
+        Snapshot current = snapshot;
+        if (System.nanoTime() - loadedAt < reloadIntervalNanos) {
+            return current;
+        }
+        synchronized (this) {
+            if (System.nanoTime() - loadedAt >= reloadIntervalNanos) {
+                refresh();
+            }
+        }
+        return snapshot;
+    }
+
+    private record Snapshot(List<Mpa> mpaList, Map<Integer, Mpa> mpaById) {
+    }
+}
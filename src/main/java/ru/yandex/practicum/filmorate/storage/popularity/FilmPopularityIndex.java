@@ -0,0 +1,228 @@
+package ru.yandex.practicum.filmorate.storage.popularity;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.filmgenre.FilmGenreStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikesFlushedEvent;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class FilmPopularityIndex {
+
+    private static final int LOAD_CHUNK_SIZE = 1000;
+    private static final Comparator<Entry> BY_POPULARITY = Comparator
+            .comparingInt(Entry::likes).reversed()
+            .thenComparingInt(Entry::filmId);
+
+    private final LikeStorage likeStorage;
+    private final FilmStorage filmStorage;
+    private final FilmGenreStorage filmGenreStorage;
+    private final boolean enabled;
+    private final Map<Integer, State> statesByFilmId = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> ranking = new ConcurrentSkipListSet<>(BY_POPULARITY);
+    private final Map<Integer, NavigableSet<Entry>> rankingsByGenreId = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<Entry>> rankingsByYear = new ConcurrentHashMap<>();
+
+    public FilmPopularityIndex(@Qualifier("likeDbStorage") LikeStorage likeStorage,
+                               @Qualifier("filmDbStorage") FilmStorage filmStorage,
+                               @Qualifier("filmGenreDbStorage") FilmGenreStorage filmGenreStorage,
+                               @Value("${filmorate.popular.in-memory:false}") boolean enabled) {
+        this.likeStorage = likeStorage;
+        this.filmStorage = filmStorage;
+        this.filmGenreStorage = filmGenreStorage;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        Map<Integer, Integer> counts = likeStorage.getLikesCounts();
+        filmStorage.findAllInChunks(LOAD_CHUNK_SIZE, films -> {
+            Map<Integer, Set<Genre>> genresByFilmId = filmGenreStorage.getGenresByFilmIds(
+                    films.stream().map(Film::getId).toList());
+            for (Film film : films) {
+                State state = new State(counts.getOrDefault(film.getId(), 0),
+                        yearOf(film.getReleaseDate()),
+                        genreIdsOf(genresByFilmId.get(film.getId())));
+                apply(film.getId(), old -> state);
+            }
+        });
+        log.info("Индекс популярности загружен: фильмов - {}, жанров - {}, лет - {}",
+                statesByFilmId.size(), rankingsByGenreId.size(), rankingsByYear.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void put(Integer filmId, int likes) {
+        apply(filmId, old -> new State(likes, old.year(), old.genreIds()));
+    }
+
+    public void setAttributes(Integer filmId, LocalDate releaseDate, Set<Genre> genres) {
+        Integer year = yearOf(releaseDate);
+        Set<Integer> genreIds = genreIdsOf(genres);
+        apply(filmId, old -> new State(old.likes(), year, genreIds));
+    }
+
+    public void increment(Integer filmId) {
+        change(filmId, 1);
+    }
+
+    public void decrement(Integer filmId) {
+        change(filmId, -1);
+    }
+
+    @EventListener
+    public void onLikesFlushed(LikesFlushedEvent event) {
+        event.added().forEach(like -> increment(like.getFilmId()));
+        event.deleted().forEach(like -> decrement(like.getFilmId()));
+    }
+
+    public Map<Integer, Integer> getLikes(Collection<Integer> filmIds) {
+        Map<Integer, Integer> likes = new HashMap<>();
+        for (Integer filmId : filmIds) {
+            State state = statesByFilmId.get(filmId);
+            if (state != null) {
+                likes.put(filmId, state.likes());
+            }
+        }
+        return likes;
+    }
+
+    public List<Integer> getTop(int count) {
+        return getTop(count, null, null);
+    }
+
+    public List<Integer> getTop(int count, Integer genreId, Integer year) {
+        NavigableSet<Entry> source;
+        if (year != null) {
+            source = rankingsByYear.get(year);
+        } else if (genreId != null) {
+            source = rankingsByGenreId.get(genreId);
+        } else {
+            source = ranking;
+        }
+        if (source == null) {
+            return List.of();
+        }
+        boolean checkGenre = genreId != null && year != null;
+        List<Integer> top = new ArrayList<>(Math.min(count, statesByFilmId.size()));
+        Set<Integer> seen = new HashSet<>();
+        for (Entry entry : source) {
+            if (top.size() == count) {
+                break;
+            }
+            if (checkGenre) {
+                State state = statesByFilmId.get(entry.filmId());
+                if (state == null || !state.genreIds().contains(genreId)) {
+                    continue;
+                }
+            }
+            // во время перестановки фильм может на мгновение встретиться дважды, берём первое вхождение
+            if (seen.add(entry.filmId())) {
+                top.add(entry.filmId());
+            }
+        }
+        return top;
+    }
+
+    private void change(Integer filmId, int delta) {
+        apply(filmId, old -> new State(Math.max(0, old.likes() + delta), old.year(), old.genreIds()));
+    }
+
+    private void apply(Integer filmId, UnaryOperator<State> update) {
+        if (!enabled) {
+            return;
+        }
+        statesByFilmId.compute(filmId, (id, old) -> {
+            State updated = update.apply(old == null ? State.EMPTY : old);
+            move(id, old, updated);
+            return updated;
+        });
+    }
+
+    private void move(Integer filmId, State old, State updated) {
+        Entry entry = new Entry(filmId, updated.likes());
+        List<NavigableSet<Entry>> rankings = rankingsOf(updated, true);
+        rankings.forEach(target -> target.add(entry));
+        if (old == null) {
+            return;
+        }
+        Entry oldEntry = new Entry(filmId, old.likes());
+        for (NavigableSet<Entry> target : rankingsOf(old, false)) {
+            if (!oldEntry.equals(entry) || rankings.stream().noneMatch(ranked -> ranked == target)) {
+                target.remove(oldEntry);
+            }
+        }
+    }
+
+    private List<NavigableSet<Entry>> rankingsOf(State state, boolean create) {
+        List<NavigableSet<Entry>> rankings = new ArrayList<>(state.genreIds().size() + 2);
+        rankings.add(ranking);
+        for (Integer genreId : state.genreIds()) {
+            NavigableSet<Entry> byGenre = create
+                    ? rankingsByGenreId.computeIfAbsent(genreId, id -> new ConcurrentSkipListSet<>(BY_POPULARITY))
+                    : rankingsByGenreId.get(genreId);
+            if (byGenre != null) {
+                rankings.add(byGenre);
+            }
+        }
+        if (state.year() != null) {
+            NavigableSet<Entry> byYear = create
+                    ? rankingsByYear.computeIfAbsent(state.year(), year -> new ConcurrentSkipListSet<>(BY_POPULARITY))
+                    : rankingsByYear.get(state.year());
+            if (byYear != null) {
+                rankings.add(byYear);
+            }
+        }
+        return rankings;
+    }
+
+    private static Integer yearOf(LocalDate releaseDate) {
+        return releaseDate == null ? null : releaseDate.getYear();
+    }
+
+    private static Set<Integer> genreIdsOf(Set<Genre> genres) {
+        if (genres == null || genres.isEmpty()) {
+            return Set.of();
+        }
+        return genres.stream()
+                .map(Genre::getId)
+                .filter(id -> id != null)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private record State(int likes, Integer year, Set<Integer> genreIds) {
+        static final State EMPTY = new State(0, null, Collections.emptySet());
+    }
+
+    private record Entry(int filmId, int likes) {
+    }
+}
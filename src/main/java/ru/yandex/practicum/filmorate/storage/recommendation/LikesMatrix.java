@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.storage.recommendation;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.like.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikesFlushedEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Матрица лайков в памяти: для каждого пользователя — битовая строка по id фильмов.
+ * Строки не изменяются после публикации, лайк заменяет строку пользователя на копию,
+ * поэтому оценка похожести читает их без блокировок и параллельно.
+ */
+@Slf4j
+@Component
+public class LikesMatrix {
+
+    private static final long[] EMPTY = new long[0];
+    private static final int NEIGHBOURS = 20;
+
+    private final LikeStorage likeStorage;
+    private final Map<Integer, long[]> rowsByUserId = new ConcurrentHashMap<>();
+
+    public LikesMatrix(@Qualifier("likeDbStorage") LikeStorage likeStorage) {
+        this.likeStorage = likeStorage;
+    }
+
+    @PostConstruct
+    public void load() {
+        rowsByUserId.clear();
+        Map<Integer, long[]> rows = new HashMap<>();
+        long[] likes = new long[1];
+        likeStorage.forEachLike((filmId, userId) -> {
+            rows.compute(userId, (id, row) -> set(row == null ? EMPTY : row, filmId));
+            likes[0]++;
+        });
+        rowsByUserId.putAll(rows);
+        log.info("Матрица лайков загружена: пользователей - {}, лайков - {}", rows.size(), likes[0]);
+    }
+
+    public void add(int userId, int filmId) {
+        rowsByUserId.compute(userId, (id, row) -> withBit(row == null ? EMPTY : row, filmId, true));
+    }
+
+    public void remove(int userId, int filmId) {
+        rowsByUserId.computeIfPresent(userId, (id, row) -> withBit(row, filmId, false));
+    }
+
+    @EventListener
+    public void onLikesFlushed(LikesFlushedEvent event) {
+        event.added().forEach(like -> add(like.getUserId(), like.getFilmId()));
+        event.deleted().forEach(like -> remove(like.getUserId(), like.getFilmId()));
+    }
+
+    public List<Integer> recommend(int userId, int limit) {
+        long[] target = rowsByUserId.getOrDefault(userId, EMPTY);
+        if (target.length == 0) {
+            return List.of();
+        }
+        List<Neighbour> neighbours = rowsByUserId.entrySet().parallelStream()
+                .filter(entry -> entry.getKey() != userId)
+                .map(entry -> new Neighbour(entry.getValue(), overlap(target, entry.getValue())))
+                .filter(neighbour -> neighbour.overlap() > 0)
+                .sorted(Comparator.comparingInt(Neighbour::overlap).reversed())
+                .limit(NEIGHBOURS)
+                .toList();
+
+        int maxLength = neighbours.stream().mapToInt(neighbour -> neighbour.row().length).max().orElse(0);
+        int[] scores = new int[maxLength * Long.SIZE];
+        for (Neighbour neighbour : neighbours) {
+            long[] row = neighbour.row();
+            for (int word = 0; word < row.length; word++) {
+                long candidates = row[word] & ~(word < target.length ? target[word] : 0L);
+                while (candidates != 0) {
+                    int bit = Long.numberOfTrailingZeros(candidates);
+                    scores[word * Long.SIZE + bit] += neighbour.overlap();
+                    candidates &= candidates - 1;
+                }
+            }
+        }
+        List<Integer> filmIds = new ArrayList<>();
+        for (int filmId = 0; filmId < scores.length; filmId++) {
+            if (scores[filmId] > 0) {
+                filmIds.add(filmId);
+            }
+        }
+        return filmIds.stream()
+                .sorted(Comparator.comparingInt((Integer filmId) -> scores[filmId]).reversed()
+                        .thenComparingInt(filmId -> filmId))
+                .limit(limit)
+                .toList();
+    }
+
+    public List<Integer> commonLikes(int userId, int otherId) {
+        long[] first = rowsByUserId.getOrDefault(userId, EMPTY);
+        long[] second = rowsByUserId.getOrDefault(otherId, EMPTY);
+        List<Integer> filmIds = new ArrayList<>();
+        for (int word = 0, length = Math.min(first.length, second.length); word < length; word++) {
+            long common = first[word] & second[word];
+            while (common != 0) {
+                filmIds.add(word * Long.SIZE + Long.numberOfTrailingZeros(common));
+                common &= common - 1;
+            }
+        }
+        return filmIds;
+    }
+
+    private static int overlap(long[] first, long[] second) {
+        int count = 0;
+        for (int i = 0, length = Math.min(first.length, second.length); i < length; i++) {
+            count += Long.bitCount(first[i] & second[i]);
+        }
+        return count;
+    }
+
+    private static long[] withBit(long[] row, int filmId, boolean value) {
+        int word = filmId / Long.SIZE;
+        if (!value && word >= row.length) {
+            return row;
+        }
+        long[] copy = Arrays.copyOf(row, Math.max(row.length, word + 1));
+        if (value) {
+            copy[word] |= 1L << filmId;
+        } else {
+            copy[word] &= ~(1L << filmId);
+        }
+        return copy;
+    }
+
+    private static long[] set(long[] row, int filmId) {
+        int word = filmId / Long.SIZE;
+        long[] result = word < row.length ? row : Arrays.copyOf(row, Math.max(word + 1, row.length * 2));
+        result[word] |= 1L << filmId;
+        return result;
+    }
+
+    private record Neighbour(long[] row, int overlap) {
+    }
+}
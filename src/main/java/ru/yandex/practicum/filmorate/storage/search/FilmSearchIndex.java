@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.storage.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Инвертированный индекс по названию и описанию фильмов.
+ * Токены приводятся к нижнему регистру, «ё» заменяется на «е»; последний токен запроса
+ * может быть началом слова, поэтому словарь хранится отсортированным.
+ */
+@Slf4j
+@Component
+public class FilmSearchIndex {
+
+    public enum Field {
+        TITLE(8, 4),
+        DESCRIPTION(2, 1);
+
+        private final int exactWeight;
+        private final int prefixWeight;
+
+        Field(int exactWeight, int prefixWeight) {
+            this.exactWeight = exactWeight;
+            this.prefixWeight = prefixWeight;
+        }
+    }
+
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final FilmStorage filmStorage;
+    private final Map<Field, NavigableMap<String, Set<Integer>>> postings = new EnumMap<>(Field.class);
+    private final Map<Integer, Map<Field, Set<String>>> tokensByFilmId = new ConcurrentHashMap<>();
+
+    public FilmSearchIndex(@Qualifier("filmDbStorage") FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+        for (Field field : Field.values()) {
+            postings.put(field, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        filmStorage.findAllInChunks(LOAD_CHUNK_SIZE, films -> films.forEach(film ->
+                index(film.getId(), film.getName(), film.getDescription())));
+        log.info("Поисковый индекс фильмов загружен: фильмов - {}, слов в названиях - {}, в описаниях - {}",
+                tokensByFilmId.size(), postings.get(Field.TITLE).size(), postings.get(Field.DESCRIPTION).size());
+    }
+
+    public synchronized void index(Integer filmId, String title, String description) {
+        Map<Field, Set<String>> tokens = new EnumMap<>(Field.class);
+        tokens.put(Field.TITLE, tokenize(title));
+        tokens.put(Field.DESCRIPTION, tokenize(description));
+        Map<Field, Set<String>> previous = tokensByFilmId.put(filmId, tokens);
+        for (Field field : Field.values()) {
+            NavigableMap<String, Set<Integer>> fieldPostings = postings.get(field);
+            if (previous != null) {
+                for (String token : previous.get(field)) {
+                    if (!tokens.get(field).contains(token)) {
+                        fieldPostings.computeIfPresent(token, (key, ids) -> {
+                            ids.remove(filmId);
+                            return ids.isEmpty() ? null : ids;
+                        });
+                    }
+                }
+            }
+            for (String token : tokens.get(field)) {
+                fieldPostings.computeIfAbsent(token, key -> ConcurrentHashMap.newKeySet()).add(filmId);
+            }
+        }
+    }
+
+    public Map<Integer, Integer> search(String query, Collection<Field> fields) {
+        Set<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty() || fields.isEmpty()) {
+            return Map.of();
+        }
+        Map<Integer, Integer> scores = null;
+        int remaining = queryTokens.size();
+        for (String token : queryTokens) {
+            boolean last = --remaining == 0;
+            Map<Integer, Integer> tokenScores = new HashMap<>();
+            for (Field field : fields) {
+                NavigableMap<String, Set<Integer>> fieldPostings = postings.get(field);
+                if (last) {
+                    fieldPostings.subMap(token, false, token + Character.MAX_VALUE, false).values()
+                            .forEach(ids -> ids.forEach(id -> tokenScores.merge(id, field.prefixWeight, Math::max)));
+                }
+                Set<Integer> exact = fieldPostings.get(token);
+                if (exact != null) {
+                    exact.forEach(id -> tokenScores.merge(id, field.exactWeight, Math::max));
+                }
+            }
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                Map<Integer, Integer> matched = scores;
+                matched.keySet().retainAll(tokenScores.keySet());
+                matched.replaceAll((id, score) -> score + tokenScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    static Set<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Set.of();
+        }
+        String folded = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        Set<String> tokens = new LinkedHashSet<>();
+        List<Integer> codePoints = new ArrayList<>();
+        folded.codePoints().forEach(codePoint -> {
+            if (Character.isLetterOrDigit(codePoint)) {
+                codePoints.add(codePoint);
+            } else if (!codePoints.isEmpty()) {
+                tokens.add(toToken(codePoints));
+            }
+        });
+        if (!codePoints.isEmpty()) {
+            tokens.add(toToken(codePoints));
+        }
+        return tokens;
+    }
+
+    private static String toToken(List<Integer> codePoints) {
+        StringBuilder token = new StringBuilder(codePoints.size());
+        codePoints.forEach(token::appendCodePoint);
+        codePoints.clear();
+        return token.toString();
+    }
+}
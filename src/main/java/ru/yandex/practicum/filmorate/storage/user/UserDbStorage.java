@@ -6,17 +6,24 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.mapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.storage.IdChunks;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 @Slf4j
 @Component
@@ -24,10 +31,12 @@ import java.util.stream.Collectors;
 public class UserDbStorage implements UserStorage {
 
     private final JdbcTemplate jdbcTemplate;
+    private final StorageVersions versions;
     private final UserRowMapper userRowMapper = new UserRowMapper();
 
-    public UserDbStorage(JdbcTemplate jdbcTemplate) {
+    public UserDbStorage(JdbcTemplate jdbcTemplate, StorageVersions versions) {
         this.jdbcTemplate = jdbcTemplate;
+        this.versions = versions;
     }
 
     @Override
@@ -36,6 +45,34 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.query(sql, userRowMapper);
     }
 
+    @Override
+    public Collection<User> findPage(int afterId, int limit) {
+        String sql = "SELECT id, email, login, name, birthday FROM users WHERE id > ? ORDER BY id LIMIT ?";
+        return jdbcTemplate.query(sql, userRowMapper, afterId, limit);
+    }
+
+    // курсор и запросы из chunkConsumer идут по одному соединению транзакции, а не берут второе из пула
+    @Override
+    @Transactional(readOnly = true)
+    public void findAllInChunks(int chunkSize, Consumer<List<User>> chunkConsumer) {
+        String sql = "SELECT id, email, login, name, birthday FROM users ORDER BY id";
+        List<User> chunk = new ArrayList<>(chunkSize);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(chunkSize);
+            return ps;
+        }, rs -> {
+            chunk.add(userRowMapper.mapRow(rs, rs.getRow()));
+            if (chunk.size() == chunkSize) {
+                chunkConsumer.accept(new ArrayList<>(chunk));
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(chunk);
+        }
+    }
+
     @Override
     public User create(User user) {
         String sql = "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
@@ -50,6 +87,7 @@ public class UserDbStorage implements UserStorage {
         }, keyHolder);
         Integer id = Objects.requireNonNull(keyHolder.getKey()).intValue();
         user.setId(id);
+        versions.bump(StorageVersions.Scope.USERS, id);
         return user;
     }
 
@@ -67,6 +105,7 @@ public class UserDbStorage implements UserStorage {
             log.warn("Ошибка при обновлении пользователя: пользователь с ID {} не найден", user.getId());
             throw new NotFoundException("Пользователь с ID - " + user.getId() + " не найден");
         }
+        versions.bump(StorageVersions.Scope.USERS, user.getId());
         return user;
     }
 
@@ -86,9 +125,28 @@ public class UserDbStorage implements UserStorage {
         if (ids == null || ids.isEmpty()) {
             return List.of();
         }
-        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
-        String sql = "SELECT id, email, login, name, birthday FROM users WHERE id IN (%s)".formatted(placeholders);
-        return jdbcTemplate.query(sql, userRowMapper, ids.toArray());
+        String sql = "SELECT id, email, login, name, birthday FROM users WHERE id = ANY(?)";
+        List<User> users = new ArrayList<>(ids.size());
+        IdChunks.forEach(ids, chunk -> users.addAll(jdbcTemplate.query(sql, userRowMapper, (Object) chunk)));
+        return users;
+    }
+
+    @Override
+    public void forEachId(IntConsumer consumer) {
+        jdbcTemplate.query("SELECT id FROM users", rs -> {
+            consumer.accept(rs.getInt("id"));
+        });
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Set.of();
+        }
+        String sql = "SELECT id FROM users WHERE id = ANY(?)";
+        Set<Integer> existing = new HashSet<>();
+        IdChunks.forEach(ids, chunk -> existing.addAll(jdbcTemplate.queryForList(sql, Integer.class, (Object) chunk)));
+        return existing;
     }
 
 }
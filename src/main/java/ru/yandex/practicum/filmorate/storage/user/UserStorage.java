@@ -3,12 +3,19 @@ package ru.yandex.practicum.filmorate.storage.user;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 public interface UserStorage {
 
     Collection<User> findAll();
 
+    Collection<User> findPage(int afterId, int limit);
+
+    void findAllInChunks(int chunkSize, Consumer<List<User>> chunkConsumer);
+
     User create(User user);
 
     User update(User user);
@@ -16,4 +23,8 @@ public interface UserStorage {
     User findById(Integer id);
 
     Collection<User> findByIds(Set<Integer> ids);
+
+    Set<Integer> findExistingIds(Collection<Integer> ids);
+
+    void forEachId(IntConsumer consumer);
 }
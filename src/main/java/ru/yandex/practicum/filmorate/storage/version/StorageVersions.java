@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.storage.version;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счётчики версий данных для ETag: по каждой сущности и по коллекции в целом.
+ * Версии берутся из одной возрастающей последовательности и меняются только после фиксации транзакции,
+ * поэтому читатель, взявший версию до запроса к БД, никогда не пометит старые данные новой версией.
+ * Эпоха — время запуска процесса: после перезапуска все прежние ETag становятся недействительными.
+ */
+@Component
+public class StorageVersions {
+
+    public enum Scope {
+        FILMS, USERS, GENRES, MPA
+    }
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Scope, AtomicLong> collectionVersions = new EnumMap<>(Scope.class);
+    private final Map<Scope, AtomicLong> resetVersions = new EnumMap<>(Scope.class);
+    private final Map<Scope, Map<Integer, Long>> entityVersions = new EnumMap<>(Scope.class);
+
+    public StorageVersions() {
+        for (Scope scope : Scope.values()) {
+            collectionVersions.put(scope, new AtomicLong());
+            resetVersions.put(scope, new AtomicLong());
+            entityVersions.put(scope, new ConcurrentHashMap<>());
+        }
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long collection(Scope scope) {
+        return collectionVersions.get(scope).get();
+    }
+
+    public long entity(Scope scope, Integer id) {
+        long version = entityVersions.get(scope).getOrDefault(id, 0L);
+        return Math.max(version, resetVersions.get(scope).get());
+    }
+
+    public void bump(Scope scope, Integer id) {
+        afterCommit(() -> {
+            long version = sequence.incrementAndGet();
+            entityVersions.get(scope).merge(id, version, Math::max);
+            collectionVersions.get(scope).accumulateAndGet(version, Math::max);
+        });
+    }
+
+    public void bump(Scope scope, Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            long version = sequence.incrementAndGet();
+            Map<Integer, Long> versions = entityVersions.get(scope);
+            ids.forEach(id -> versions.merge(id, version, Math::max));
+            collectionVersions.get(scope).accumulateAndGet(version, Math::max);
+        });
+    }
+
+    public void bumpAll(Scope scope) {
+        afterCommit(() -> {
+            long version = sequence.incrementAndGet();
+            resetVersions.get(scope).accumulateAndGet(version, Math::max);
+            collectionVersions.get(scope).accumulateAndGet(version, Math::max);
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -18,6 +18,7 @@ CREATE TABLE IF NOT EXISTS films (
     releaseDate DATE NOT NULL,
     duration INTEGER NOT NULL,
     mpa_id INTEGER,
+    likes_count INTEGER DEFAULT 0 NOT NULL,
     CONSTRAINT fk_films_mpa FOREIGN KEY (mpa_id) REFERENCES mpa (id)
 );
 
@@ -50,4 +51,18 @@ CREATE TABLE IF NOT EXISTS likes (
     CONSTRAINT fk_likes_film FOREIGN KEY (film_id) REFERENCES films (id)
 );
 
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count INTEGER DEFAULT 0 NOT NULL;
+
+CREATE TABLE IF NOT EXISTS schema_migrations (
+    name VARCHAR(100) PRIMARY KEY
+);
+
+-- разовое заполнение likes_count для баз, созданных до появления столбца
+UPDATE films AS f SET likes_count = (SELECT COUNT(*) FROM likes AS l WHERE l.film_id = f.id)
+WHERE NOT EXISTS (SELECT 1 FROM schema_migrations WHERE name = 'films_likes_count_backfill');
+
+MERGE INTO schema_migrations (name) KEY(name) VALUES ('films_likes_count_backfill');
+
 CREATE INDEX IF NOT EXISTS idx_films_mpa_id ON films (mpa_id);
+CREATE INDEX IF NOT EXISTS idx_films_likes_count ON films (likes_count DESC, id);
+CREATE INDEX IF NOT EXISTS idx_likes_film_id ON likes (film_id);
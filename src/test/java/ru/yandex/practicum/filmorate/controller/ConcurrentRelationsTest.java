@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.CursorPage;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.jdbc.StatementCounter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// без @Transactional: внутри транзакции RelationLoader грузит связи последовательно —
+// этим тест и пользуется, чтобы получить эталон того же кода без параллельных загрузок
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = {
+        "filmorate.relations.concurrent.enabled=true",
+        "filmorate.films.single-query-hydration=false"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ConcurrentRelationsTest {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final FilmService filmService;
+    private final PlatformTransactionManager transactionManager;
+
+    private final List<Integer> filmIds = new ArrayList<>();
+    private Integer userId;
+
+    @AfterEach
+    void tearDown() {
+        for (Integer filmId : filmIds) {
+            jdbcTemplate.update("DELETE FROM likes WHERE film_id = ?", filmId);
+            jdbcTemplate.update("DELETE FROM film_genres WHERE film_id = ?", filmId);
+            jdbcTemplate.update("DELETE FROM films WHERE id = ?", filmId);
+        }
+        if (userId != null) {
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        }
+    }
+
+    @Test
+    void findByIdMatchesSequentialLoadAndCountsForkedStatements() throws Exception {
+        int filmId = createFilm("[{\"id\": 1}, {\"id\": 3}]");
+        userId = create("/users", """
+                {"email": "fork-%d@mail.ru", "login": "fork", "name": "Имя", "birthday": "1990-01-01"}
+                """.formatted(System.nanoTime()));
+        mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId)).andExpect(status().isOk());
+
+        StatementCounter counter = StatementCounter.start();
+        Film sequential;
+        try {
+            sequential = inTransaction(() -> filmService.findById(filmId));
+        } finally {
+            StatementCounter.stop();
+        }
+        MvcResult result = mockMvc.perform(get("/films/{id}", filmId))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(objectMapper.readTree(result.getResponse().getContentAsString(StandardCharsets.UTF_8)))
+                .isEqualTo(objectMapper.valueToTree(sequential));
+        assertThat(sequential.getGenres()).hasSize(2);
+        assertThat(sequential.getLikes()).containsExactly(userId);
+        assertThat(StatementBudget.statements(result)).isEqualTo(counter.getStatements());
+    }
+
+    @Test
+    void pageMatchesSequentialLoad() throws Exception {
+        int first = createFilm("[{\"id\": 2}]");
+        createFilm("[]");
+
+        CursorPage<Film> sequential = inTransaction(() -> filmService.findPage(first - 1, 2, true));
+        String body = mockMvc.perform(get("/films").param("after", String.valueOf(first - 1)).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertThat(objectMapper.readTree(body)).isEqualTo(objectMapper.valueToTree(sequential));
+    }
+
+    @Test
+    void missingFilmIsReportedAfterForks() throws Exception {
+        mockMvc.perform(get("/films/{id}", 999_999))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+
+    private int createFilm(String genres) throws Exception {
+        int id = create("/films", """
+                {"name": "Фильм", "description": "Описание", "releaseDate": "2000-01-01", "duration": 100,
+                "mpa": {"id": 1}, "genres": %s}
+                """.formatted(genres));
+        filmIds.add(id);
+        return id;
+    }
+
+    private int create(String path, String json) throws Exception {
+        String body = mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asInt();
+    }
+}
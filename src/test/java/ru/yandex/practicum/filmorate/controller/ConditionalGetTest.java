@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// без @Transactional: версии меняются только после фиксации транзакции
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ConditionalGetTest {
+
+    private final MockMvc mockMvc;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private Integer filmId;
+    private Integer userId;
+
+    @AfterEach
+    void tearDown() {
+        if (filmId != null) {
+            jdbcTemplate.update("DELETE FROM likes WHERE film_id = ?", filmId);
+            jdbcTemplate.update("DELETE FROM films WHERE id = ?", filmId);
+        }
+        if (userId != null) {
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        }
+    }
+
+    @Test
+    void genresAnswerNotModifiedWithoutQueries() throws Exception {
+        String etag = etag(mockMvc.perform(get("/genres")).andExpect(status().isOk()).andReturn()
+                .getResponse().getHeader(HttpHeaders.ETAG));
+
+        mockMvc.perform(get("/genres").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(StatementBudget.atMost(0));
+    }
+
+    @Test
+    void filmTagChangesAfterLike() throws Exception {
+        filmId = create("/films", """
+                {"name": "Фильм", "description": "Описание", "releaseDate": "2000-01-01",
+                 "duration": 100, "mpa": {"id": 1}}
+                """);
+        userId = create("/users", """
+                {"email": "etag-%d@mail.ru", "login": "etag", "name": "Имя", "birthday": "1990-01-01"}
+                """.formatted(System.nanoTime()));
+        String filmTag = etag(mockMvc.perform(get("/films/{id}", filmId)).andReturn()
+                .getResponse().getHeader(HttpHeaders.ETAG));
+        String listTag = etag(mockMvc.perform(get("/films")).andReturn()
+                .getResponse().getHeader(HttpHeaders.ETAG));
+        String countTag = mockMvc.perform(get("/films").param("likes", "count")).andReturn()
+                .getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(countTag).isNotEqualTo(listTag);
+
+        mockMvc.perform(get("/films/{id}", filmId).header(HttpHeaders.IF_NONE_MATCH, filmTag))
+                .andExpect(status().isNotModified())
+                .andExpect(StatementBudget.atMost(0));
+
+        mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId)).andExpect(status().isOk());
+
+        String newFilmTag = mockMvc.perform(get("/films/{id}", filmId).header(HttpHeaders.IF_NONE_MATCH, filmTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newFilmTag).isNotEqualTo(filmTag);
+        mockMvc.perform(get("/films").header(HttpHeaders.IF_NONE_MATCH, listTag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    private Integer create(String path, String json) throws Exception {
+        String body = mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asInt();
+    }
+
+    private static String etag(String value) {
+        assertThat(value).startsWith("\"").endsWith("\"");
+        return value;
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmControllerStatementBudgetTest {
+
+    private final MockMvc mockMvc;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 20; i++) {
+            jdbcTemplate.update("INSERT INTO films (name, description, releaseDate, duration, mpa_id) VALUES (?, ?, ?, ?, ?)",
+                    "Film " + i, "desc", LocalDate.of(2000, 1, 1), 100, 1);
+        }
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) SELECT id, 1 FROM films");
+    }
+
+    @Test
+    void popularDoesNotDependOnCount() throws Exception {
+        mockMvc.perform(get("/films/popular").param("count", "1"))
+                .andExpect(status().isOk())
+                .andExpect(StatementBudget.atMost(3));
+        mockMvc.perform(get("/films/popular").param("count", "100"))
+                .andExpect(status().isOk())
+                .andExpect(StatementBudget.atMost(3));
+    }
+
+    @Test
+    void findAllWithLikeIds() throws Exception {
+        mockMvc.perform(get("/films").param("likes", "ids"))
+                .andExpect(status().isOk())
+                .andExpect(StatementBudget.atMost(3));
+    }
+
+    @Test
+    void rejectsUnknownLikesMode() throws Exception {
+        mockMvc.perform(get("/films").param("likes", "cnt"))
+                .andExpect(status().isBadRequest())
+                .andExpect(StatementBudget.atMost(0));
+        mockMvc.perform(get("/films/popular").param("likes", "cnt"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// без @Transactional: импорт сам фиксирует транзакции каждые commit-interval строк
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = {
+        "filmorate.films.import.batch-size=3",
+        "filmorate.films.import.commit-interval=6"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmImportTest {
+
+    private final MockMvc mockMvc;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String prefix = "Импорт" + System.nanoTime();
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM film_genres WHERE film_id IN (SELECT id FROM films WHERE name LIKE ?)",
+                prefix + "%");
+        jdbcTemplate.update("DELETE FROM films WHERE name LIKE ?", prefix + "%");
+    }
+
+    @Test
+    void importsValidLinesAndReportsRejected() throws Exception {
+        String body = String.join("\n",
+                film("один", "[{\"id\": 1}, {\"id\": 2}, {\"id\": 2, \"name\": \"Драма\"}]", 1),
+                "{\"name\": ",
+                film("два", "[]", 2),
+                film("три", "[{\"id\": 3}]", 999),
+                "",
+                film("четыре", "[{\"id\": 999}]", 1),
+                film("пять", "[{\"id\": 6}]", 5));
+
+        mockMvc.perform(post("/films/import").contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(6))
+                .andExpect(jsonPath("$.imported").value(3))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.commits").value(1))
+                .andExpect(jsonPath("$.errors[*].line").value(contains(2, 4, 6)))
+                .andExpect(jsonPath("$.errors[1].message").value("MPA с ID - 999 не найден"));
+
+        List<Integer> ids = jdbcTemplate.queryForList("SELECT id FROM films WHERE name LIKE ? ORDER BY id",
+                Integer.class, prefix + "%");
+        assertThat(ids).hasSize(3);
+        assertThat(jdbcTemplate.queryForList("SELECT genre_id FROM film_genres WHERE film_id = ? ORDER BY genre_id",
+                Integer.class, ids.get(0))).containsExactly(1, 2);
+        mockMvc.perform(get("/films/{id}", ids.get(2)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.genres[0].id").value(6))
+                .andExpect(jsonPath("$.mpa.id").value(5));
+        mockMvc.perform(get("/films/search").param("query", prefix))
+                .andExpect(jsonPath("$.length()").value(3));
+    }
+
+    @Test
+    void statementsGrowWithBatchesNotRows() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            body.append(film("фильм" + i, "[{\"id\": 1}]", 1)).append('\n');
+        }
+
+        int statements = StatementBudget.statements(mockMvc.perform(post("/films/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(10))
+                .andExpect(jsonPath("$.commits").value(2))
+                .andReturn());
+
+        // по два пакета (фильмы и жанры) на каждые batch-size строк
+        assertThat(statements).isEqualTo(8);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM film_genres WHERE film_id IN (SELECT id FROM films WHERE name LIKE ?)",
+                Integer.class, prefix + "%")).isEqualTo(10);
+    }
+
+    private String film(String name, String genres, int mpaId) {
+        return """
+                {"name": "%s %s", "description": "Описание", "releaseDate": "2000-01-01", "duration": 100, \
+                "mpa": {"id": %d}, "genres": %s}""".formatted(prefix, name, mpaId, genres);
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// без @Transactional: поисковый индекс обновляется в памяти и не откатывается вместе с тестом
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmSearchTest {
+
+    private final MockMvc mockMvc;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final String word = "поиск" + System.nanoTime();
+    private final List<Integer> filmIds = new ArrayList<>();
+    private Integer userId;
+
+    @AfterEach
+    void tearDown() {
+        for (Integer filmId : filmIds) {
+            jdbcTemplate.update("DELETE FROM likes WHERE film_id = ?", filmId);
+            jdbcTemplate.update("DELETE FROM films WHERE id = ?", filmId);
+        }
+        if (userId != null) {
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        }
+    }
+
+    @Test
+    void tiesAtCutoffAreRankedByLikes() throws Exception {
+        int exact = createFilm(word + " один");
+        int first = createFilm(word + "ка два");
+        int second = createFilm(word + "ка три");
+        createFilm(word + "ка четыре");
+        userId = create("/users", """
+                {"email": "%s@mail.ru", "login": "%s", "name": "Имя", "birthday": "1990-01-01"}
+                """.formatted(word, word));
+        mockMvc.perform(put("/films/{id}/like/{userId}", second, userId)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/search").param("query", word).param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(exact, second, first)));
+    }
+
+    private int createFilm(String name) throws Exception {
+        int id = create("/films", """
+                {"name": "%s", "description": "Описание", "releaseDate": "2000-01-01", "duration": 100, "mpa": {"id": 1}}
+                """.formatted(name));
+        filmIds.add(id);
+        return id;
+    }
+
+    private int create(String path, String json) throws Exception {
+        String body = mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asInt();
+    }
+}
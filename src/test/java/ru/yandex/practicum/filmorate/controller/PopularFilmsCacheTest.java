@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@TestPropertySource(properties = "filmorate.popular.cache.ttl=1h")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class PopularFilmsCacheTest {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Test
+    void refreshesOnlyWhenRankingChanges() throws Exception {
+        int first = create("/films", film("Первый"));
+        int second = create("/films", film("Второй"));
+        int third = create("/films", film("Третий"));
+        int user1 = create("/users", user(1));
+        int user2 = create("/users", user(2));
+        int user3 = create("/users", user(3));
+        like(first, user1);
+        like(first, user2);
+        like(second, user1);
+
+        assertThat(popularIds()).containsExactly(first, second);
+        mockMvc.perform(get("/films/popular").param("count", "2"))
+                .andExpect(status().isOk())
+                .andExpect(StatementBudget.atMost(0));
+        double refreshes = refreshes();
+
+        // третий догоняет второй, но при равенстве лайков выше фильм с меньшим id
+        like(third, user3);
+        like(first, user3);
+        awaitRefreshes(refreshes + 1);
+        assertThat(refreshes()).isEqualTo(refreshes + 1);
+        assertThat(popularIds()).containsExactly(first, second);
+
+        like(third, user2);
+        awaitRefreshes(refreshes + 2);
+        assertThat(popularIds()).containsExactly(first, third);
+    }
+
+    @Test
+    void rejectsCountOutsideBounds() throws Exception {
+        mockMvc.perform(get("/films/popular").param("count", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/films/popular").param("count", "2000000000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<Integer> popularIds() throws Exception {
+        String body = mockMvc.perform(get("/films/popular").param("count", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Integer> ids = new ArrayList<>();
+        for (JsonNode film : objectMapper.readTree(body)) {
+            ids.add(film.get("id").asInt());
+        }
+        return ids;
+    }
+
+    private double refreshes() {
+        return meterRegistry.counter("filmorate.popular.cache.requests", "result", "refresh").count();
+    }
+
+    private void awaitRefreshes(double expected) throws InterruptedException {
+        for (int i = 0; i < 100 && refreshes() < expected; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(refreshes()).isGreaterThanOrEqualTo(expected);
+    }
+
+    private void like(int filmId, int userId) throws Exception {
+        mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId)).andExpect(status().isOk());
+    }
+
+    private int create(String path, String json) throws Exception {
+        String body = mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asInt();
+    }
+
+    private static String film(String name) {
+        return """
+                {"name": "%s", "description": "Описание", "releaseDate": "2000-01-01", "duration": 100, "mpa": {"id": 1}}
+                """.formatted(name);
+    }
+
+    private static String user(int number) {
+        return """
+                {"email": "cache-%d@mail.ru", "login": "cache%d", "name": "Имя", "birthday": "1990-01-01"}
+                """.formatted(number, number);
+    }
+}
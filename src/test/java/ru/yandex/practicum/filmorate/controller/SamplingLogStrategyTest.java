@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.servlet.LogbookFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SamplingLogStrategyTest {
+
+    private final List<String> logged = new ArrayList<>();
+    private final Sink sink = new Sink() {
+        @Override
+        public void write(Precorrelation precorrelation, HttpRequest request) {
+        }
+
+        @Override
+        public void write(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+            logged.add(response.getStatus() + ":" + response.getBodyAsString());
+        }
+    };
+
+    @Test
+    void skipsSuccessfulRequestsOutsideSample() throws Exception {
+        perform(new SamplingLogStrategy(0, 400, Duration.ofHours(1)), 200);
+
+        assertThat(logged).isEmpty();
+    }
+
+    @Test
+    void logsErrorsOutsideSampleWithoutBody() throws Exception {
+        perform(new SamplingLogStrategy(0, 400, Duration.ofHours(1)), 404);
+
+        assertThat(logged).containsExactly("404:");
+    }
+
+    @Test
+    void logsSlowRequestsOutsideSample() throws Exception {
+        perform(new SamplingLogStrategy(0, 400, Duration.ZERO), 200);
+
+        assertThat(logged).containsExactly("200:");
+    }
+
+    @Test
+    void logsSampledRequestsWithBody() throws Exception {
+        perform(new SamplingLogStrategy(1, 400, Duration.ofHours(1)), 200);
+
+        assertThat(logged).containsExactly("200:[1,2]");
+    }
+
+    private void perform(SamplingLogStrategy strategy, int status) throws Exception {
+        Logbook logbook = Logbook.builder()
+                .strategy(strategy)
+                .correlationId(strategy)
+                .sink(sink)
+                .build();
+        new LogbookFilter(logbook).doFilter(new MockHttpServletRequest("GET", "/films/popular"),
+                new MockHttpServletResponse(), (request, response) -> {
+                    ((HttpServletResponse) response).setStatus(status);
+                    response.getOutputStream().write("[1,2]".getBytes(StandardCharsets.UTF_8));
+                });
+    }
+}
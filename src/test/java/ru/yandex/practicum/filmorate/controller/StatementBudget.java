@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class StatementBudget {
+
+    private StatementBudget() {
+    }
+
+    public static ResultMatcher atMost(int statements) {
+        return result -> assertThat(statements(result))
+                .as("SQL-запросов для %s", result.getRequest().getRequestURI())
+                .isLessThanOrEqualTo(statements);
+    }
+
+    public static int statements(MvcResult result) {
+        String header = result.getResponse().getHeader(StatementStatsFilter.STATEMENTS_HEADER);
+        assertThat(header).as("заголовок %s", StatementStatsFilter.STATEMENTS_HEADER).isNotNull();
+        return Integer.parseInt(header);
+    }
+}
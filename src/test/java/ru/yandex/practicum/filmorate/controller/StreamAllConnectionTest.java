@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// пул из одного соединения: выгрузка не должна брать второе на жанры и лайки, пока открыт курсор
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stream-all;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=250",
+        "filmorate.relations.concurrent.enabled=true"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class StreamAllConnectionTest {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void streamsWithSingleConnection() throws Exception {
+        // больше одной порции выгрузки, чтобы связи грузились при открытом курсоре
+        jdbcTemplate.update("""
+                INSERT INTO films (name, description, releaseDate, duration, mpa_id)
+                SELECT 'Фильм ' || X, 'Описание', DATE '2000-01-01', 100, 1 FROM SYSTEM_RANGE(1, 600)
+                """);
+        int userId = create("/users", """
+                {"email": "stream@mail.ru", "login": "stream", "name": "Имя", "birthday": "1990-01-01"}
+                """);
+        int filmId = create("/films", """
+                {"name": "Выгрузка", "description": "Описание", "releaseDate": "2000-01-01", "duration": 100,
+                "mpa": {"id": 1}, "genres": [{"id": 2}]}
+                """);
+        mockMvc.perform(put("/films/{id}/like/{userId}", filmId, userId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(asyncDispatch(stream("/films")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(601))
+                .andExpect(jsonPath("$[600].id").value(filmId))
+                .andExpect(jsonPath("$[600].genres[0].id").value(2))
+                .andExpect(jsonPath("$[600].likes[0]").value(userId));
+        mockMvc.perform(asyncDispatch(stream("/users")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(userId));
+    }
+
+    private MvcResult stream(String path) throws Exception {
+        return mockMvc.perform(get(path).param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private int create(String path, String json) throws Exception {
+        String body = mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asInt();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Logbook;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.servlet.LogbookFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingLogStrategyTest {
+
+    private final List<String> logged = new ArrayList<>();
+    private final Sink sink = new Sink() {
+        @Override
+        public void write(Precorrelation precorrelation, HttpRequest request) {
+        }
+
+        @Override
+        public void write(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+            logged.add(request.getQuery() + ":" + response.getStatus() + ":" + response.getBodyAsString());
+        }
+    };
+
+    @Test
+    void logsStreamedResponsesWithoutBody() throws Exception {
+        perform("stream=true&likes=count");
+
+        assertThat(logged).containsExactly("stream=true&likes=count:200:");
+    }
+
+    @Test
+    void logsOtherResponsesWithBody() throws Exception {
+        perform("limit=2");
+        perform("stream=false");
+
+        assertThat(logged).containsExactly("limit=2:200:[1,2]", "stream=false:200:[1,2]");
+    }
+
+    private void perform(String query) throws Exception {
+        Logbook logbook = Logbook.builder()
+                .strategy(new StreamingLogStrategy())
+                .sink(sink)
+                .build();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/films");
+        request.setQueryString(query);
+        new LogbookFilter(logbook).doFilter(request, new MockHttpServletResponse(), (req, response) ->
+                response.getOutputStream().write("[1,2]".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
+import ru.yandex.practicum.filmorate.storage.existence.ExistenceIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.filmgenre.FilmGenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreCachedStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaCachedStorage;
+import ru.yandex.practicum.filmorate.storage.popularity.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.recommendation.LikesMatrix;
+import ru.yandex.practicum.filmorate.storage.search.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// без @Transactional: лайк и его снятие идут из разных потоков и должны видеть записи друг друга
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmServiceLikeOrderTest {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StorageVersions versions;
+    private final FilmDbStorage filmStorage;
+    private final FilmGenreDbStorage filmGenreStorage;
+    private final MpaCachedStorage mpaStorage;
+    private final GenreCachedStorage genreStorage;
+    private final FilmPopularityIndex popularityIndex;
+    private final ExistenceIndex existenceIndex;
+    private final LikesMatrix likesMatrix;
+    private final FilmSearchIndex searchIndex;
+    private final RelationLoader relationLoader;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private Integer userId;
+    private Integer filmId;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM likes WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM films WHERE id = ?", filmId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+    }
+
+    @Test
+    void deleteDuringAddIsAppliedInSameOrderAsDatabase() throws Exception {
+        insertUserAndFilm();
+        CountDownLatch addWritten = new CountDownLatch(1);
+        LikeDbStorage slowStorage = new LikeDbStorage(jdbcTemplate, versions) {
+            @Override
+            public boolean addLike(Integer filmId, Integer userId) {
+                boolean added = super.addLike(filmId, userId);
+                addWritten.countDown();
+                // окно между записью в БД и обновлением матрицы лайков
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+                return added;
+            }
+        };
+
+        runDeleteDuring(filmService(slowStorage), addWritten,
+                service -> service.addLike(filmId, userId));
+
+        assertThat(slowStorage.getLikes(filmId)).isEmpty();
+        assertThat(likesMatrix.commonLikes(userId, userId)).isEmpty();
+    }
+
+    @Test
+    void deleteDuringBatchAddIsAppliedInSameOrderAsDatabase() throws Exception {
+        insertUserAndFilm();
+        CountDownLatch addWritten = new CountDownLatch(1);
+        LikeDbStorage slowStorage = new LikeDbStorage(jdbcTemplate, versions) {
+            @Override
+            public List<LikeBatchItem> addLikes(List<LikeBatchItem> likes) {
+                List<LikeBatchItem> added = super.addLikes(likes);
+                addWritten.countDown();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+                return added;
+            }
+        };
+
+        runDeleteDuring(filmService(slowStorage), addWritten,
+                service -> service.addLikes(List.of(new LikeBatchItem(filmId, userId))));
+
+        assertThat(slowStorage.getLikes(filmId)).isEmpty();
+        assertThat(likesMatrix.commonLikes(userId, userId)).isEmpty();
+    }
+
+    private void runDeleteDuring(FilmService service, CountDownLatch addWritten,
+                                 Consumer<FilmService> add) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> adding = executor.submit(() -> add.accept(service));
+            addWritten.await();
+            Future<?> deleting = executor.submit(() -> service.deleteLike(filmId, userId));
+            adding.get();
+            deleting.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private FilmService filmService(LikeDbStorage likeStorage) {
+        return new FilmService(filmStorage, likeStorage, filmGenreStorage, mpaStorage, genreStorage, popularityIndex,
+                existenceIndex, likesMatrix, searchIndex, relationLoader, eventPublisher, true);
+    }
+
+    private void insertUserAndFilm() {
+        String login = "order" + System.nanoTime();
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                login + "@ex.com", login, login, LocalDate.of(1990, 1, 1));
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = ?", Integer.class, login);
+        jdbcTemplate.update("INSERT INTO films (name, description, releaseDate, duration, mpa_id) VALUES (?, ?, ?, ?, ?)",
+                login, "desc", LocalDate.of(2000, 1, 1), 100, 1);
+        filmId = jdbcTemplate.queryForObject("SELECT id FROM films WHERE name = ?", Integer.class, login);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.storage.jdbc.StatementCounter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RelationLoaderTest {
+
+    private final RelationLoader relationLoader = new RelationLoader(true, 1);
+
+    @AfterEach
+    void tearDown() {
+        StatementCounter.stop();
+        relationLoader.shutdown();
+    }
+
+    @Test
+    void forkRunsOnAnotherThreadWithRequestCounter() {
+        StatementCounter counter = StatementCounter.start();
+        Thread caller = Thread.currentThread();
+
+        try (RelationLoader.Scope scope = relationLoader.open()) {
+            Supplier<Thread> thread = scope.fork(Thread::currentThread);
+            Supplier<StatementCounter> attached = scope.fork(StatementCounter::current);
+
+            assertThat(thread.get()).isNotSameAs(caller);
+            assertThat(attached.get()).isSameAs(counter);
+        }
+    }
+
+    @Test
+    void forkExceptionReachesCaller() {
+        try (RelationLoader.Scope scope = relationLoader.open()) {
+            Supplier<Object> failed = scope.fork(() -> {
+                throw new NotFoundException("Фильм с ID - 1 не найден");
+            });
+
+            assertThatThrownBy(failed::get)
+                    .isInstanceOf(NotFoundException.class)
+                    .hasMessage("Фильм с ID - 1 не найден");
+        }
+    }
+
+    @Test
+    void closeWaitsForRunningLoadsAndSkipsPendingOnes() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean runningFinished = new AtomicBoolean();
+        AtomicBoolean pendingRan = new AtomicBoolean();
+
+        RelationLoader.Scope scope = relationLoader.open();
+        scope.fork(() -> {
+            started.countDown();
+            sleep(200);
+            runningFinished.set(true);
+            return null;
+        });
+        started.await();
+        // единственное разрешение занято первой загрузкой, вторая ждёт его
+        scope.fork(() -> {
+            pendingRan.set(true);
+            return null;
+        });
+        scope.close();
+
+        assertThat(runningFinished).isTrue();
+        assertThat(pendingRan).isFalse();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
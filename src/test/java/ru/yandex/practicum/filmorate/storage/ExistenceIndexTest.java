@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.storage.existence.ExistenceIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({UserDbStorage.class, FilmDbStorage.class, ExistenceIndex.class, StorageVersions.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ExistenceIndexTest {
+
+    private final ExistenceIndex existenceIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    // строки удаляются из БД после загрузки: если проверка проходит, ответ дал индекс, а не запрос
+    @Test
+    void loadSeedsIndexFromStorage() {
+        Integer userId = insertUser("seed@ex.com", "seed");
+        Integer filmId = insertFilm("Seed");
+
+        existenceIndex.load();
+        deleteUser(userId);
+        deleteFilm(filmId);
+
+        existenceIndex.requireUser(userId);
+        existenceIndex.requireFilm(filmId);
+    }
+
+    @Test
+    void requireFallsBackToDatabaseAndCachesHit() {
+        existenceIndex.load();
+        Integer userId = insertUser("late@ex.com", "late");
+        Integer filmId = insertFilm("Late");
+
+        existenceIndex.requireUser(userId);
+        existenceIndex.requireFilm(filmId);
+        deleteUser(userId);
+        deleteFilm(filmId);
+
+        existenceIndex.requireUser(userId);
+        existenceIndex.requireFilm(filmId);
+    }
+
+    @Test
+    void requireThrowsForMissingId() {
+        existenceIndex.load();
+
+        assertThatThrownBy(() -> existenceIndex.requireUser(999_999))
+                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> existenceIndex.requireFilm(999_999))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void existingMergesIndexAndDatabase() {
+        Integer indexedUser = insertUser("indexed@ex.com", "indexed");
+        Integer indexedFilm = insertFilm("Indexed");
+        existenceIndex.load();
+        deleteUser(indexedUser);
+        deleteFilm(indexedFilm);
+        Integer storedUser = insertUser("stored@ex.com", "stored");
+        Integer storedFilm = insertFilm("Stored");
+
+        assertThat(existenceIndex.existingUsers(List.of(indexedUser, storedUser, 999_999)))
+                .containsExactlyInAnyOrder(indexedUser, storedUser);
+        assertThat(existenceIndex.existingFilms(List.of(indexedFilm, storedFilm, 999_999)))
+                .containsExactlyInAnyOrder(indexedFilm, storedFilm);
+
+        deleteUser(storedUser);
+        deleteFilm(storedFilm);
+
+        assertThat(existenceIndex.existingUsers(List.of(storedUser))).containsExactly(storedUser);
+        assertThat(existenceIndex.existingFilms(List.of(storedFilm))).containsExactly(storedFilm);
+    }
+
+    private Integer insertUser(String email, String login) {
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                email, login, login, LocalDate.of(1990, 1, 1));
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = ?", Integer.class, login);
+    }
+
+    private Integer insertFilm(String name) {
+        jdbcTemplate.update("MERGE INTO mpa (id, name) KEY(id) VALUES (?, ?)", 1, "G");
+        jdbcTemplate.update("INSERT INTO films (name, description, releaseDate, duration, mpa_id) VALUES (?, ?, ?, ?, ?)",
+                name, "desc", LocalDate.of(2000, 1, 1), 100, 1);
+        return jdbcTemplate.queryForObject("SELECT id FROM films WHERE name = ?", Integer.class, name);
+    }
+
+    private void deleteUser(Integer id) {
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
+    }
+
+    private void deleteFilm(Integer id) {
+        jdbcTemplate.update("DELETE FROM films WHERE id = ?", id);
+    }
+}
@@ -8,17 +8,21 @@ import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Import(FilmDbStorage.class)
+@Import({FilmDbStorage.class, StorageVersions.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class FilmDbStorageTest {
 
@@ -80,6 +84,109 @@ class FilmDbStorageTest {
         assertThat(films).hasSizeGreaterThanOrEqualTo(2);
     }
 
+    @Test
+    void findTopPopularOrdersByLikesCount() {
+        ensureMpa(1, "G");
+        Integer first = insertFilm("F1", 100, 1);
+        insertFilm("F2", 110, 1);
+        Integer third = insertFilm("F3", 120, 1);
+        jdbcTemplate.update("UPDATE films SET likes_count = ? WHERE id = ?", 1, first);
+        jdbcTemplate.update("UPDATE films SET likes_count = ? WHERE id = ?", 5, third);
+
+        Collection<Film> films = filmStorage.findTopPopular(2, null, null);
+
+        assertThat(films).extracting(Film::getId).containsExactly(third, first);
+        assertThat(films).extracting(Film::getLikesCount).containsExactly(5, 1);
+    }
+
+    @Test
+    void findTopPopularFiltersByGenreAndYear() {
+        ensureMpa(1, "G");
+        Integer first = insertFilm("F1", 100, 1);
+        Integer second = insertFilm("F2", 110, 1);
+        Integer third = insertFilm("F3", 120, 1);
+        jdbcTemplate.update("UPDATE films SET releaseDate = ? WHERE id = ?", LocalDate.of(2010, 5, 5), third);
+        jdbcTemplate.update("UPDATE films SET likes_count = ? WHERE id = ?", 2, second);
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", first, 1);
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", second, 1);
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", third, 1);
+
+        assertThat(filmStorage.findTopPopular(10, 1, null)).extracting(Film::getId).containsExactly(second, first, third);
+        assertThat(filmStorage.findTopPopular(10, 1, 2010)).extracting(Film::getId).containsExactly(third);
+        assertThat(filmStorage.findTopPopularWithRelations(10, 2, null, false)).isEmpty();
+    }
+
+    @Test
+    void findPage() {
+        ensureMpa(1, "G");
+        Integer first = insertFilm("F1", 100, 1);
+        Integer second = insertFilm("F2", 110, 1);
+        Integer third = insertFilm("F3", 120, 1);
+
+        Collection<Film> page = filmStorage.findPage(0, 2);
+        Collection<Film> rest = filmStorage.findPage(second, 2);
+
+        assertThat(page).extracting(Film::getId).containsExactly(first, second);
+        assertThat(rest).extracting(Film::getId).containsExactly(third);
+    }
+
+    @Test
+    void findAllInChunks() {
+        ensureMpa(1, "G");
+        insertFilm("F1", 100, 1);
+        insertFilm("F2", 110, 1);
+        insertFilm("F3", 120, 1);
+        List<Integer> chunkSizes = new ArrayList<>();
+
+        filmStorage.findAllInChunks(2, chunk -> chunkSizes.add(chunk.size()));
+
+        assertThat(chunkSizes).containsExactly(2, 1);
+    }
+
+    @Test
+    void findByIds() {
+        ensureMpa(1, "G");
+        Integer first = insertFilm("F1", 100, 1);
+        insertFilm("F2", 110, 1);
+        Integer third = insertFilm("F3", 120, 1);
+
+        Collection<Film> films = filmStorage.findByIds(List.of(first, third));
+
+        assertThat(films).extracting(Film::getId).containsExactlyInAnyOrder(first, third);
+    }
+
+    @Test
+    void findByIdWithRelations() {
+        ensureMpa(1, "G");
+        Integer filmId = insertFilm("F1", 100, 1);
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                "u@mail.ru", "user", "user", LocalDate.of(1990, 1, 1));
+        Integer userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = ?", Integer.class, "user");
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmId, 1);
+        jdbcTemplate.update("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", filmId, 2);
+        jdbcTemplate.update("INSERT INTO likes (user_id, film_id) VALUES (?, ?)", userId, filmId);
+        String genreName = jdbcTemplate.queryForObject("SELECT name FROM genres WHERE id = 1", String.class);
+
+        Film film = filmStorage.findByIdWithRelations(filmId);
+
+        assertThat(film.getMpa().getName()).isEqualTo("G");
+        assertThat(film.getGenres()).extracting(Genre::getId).containsExactlyInAnyOrder(1, 2);
+        assertThat(film.getGenres()).extracting(Genre::getName).contains(genreName);
+        assertThat(film.getLikes()).containsExactly(userId);
+    }
+
+    @Test
+    void findAllWithRelationsWithoutLikeIds() {
+        ensureMpa(1, "G");
+        Integer filmId = insertFilm("F1", 100, 1);
+
+        Collection<Film> films = filmStorage.findAllWithRelations(false);
+
+        Film film = films.stream().filter(f -> f.getId().equals(filmId)).findFirst().orElseThrow();
+        assertThat(film.getGenres()).isEmpty();
+        assertThat(film.getLikes()).isNull();
+    }
+
     private void ensureMpa(int id, String name) {
         jdbcTemplate.update("MERGE INTO mpa (id, name) KEY(id) VALUES (?, ?)", id, name);
     }
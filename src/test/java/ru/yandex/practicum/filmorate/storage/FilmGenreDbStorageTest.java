@@ -9,6 +9,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.filmgenre.FilmGenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
 import java.time.LocalDate;
 import java.util.Set;
@@ -18,7 +19,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Import(FilmGenreDbStorage.class)
+@Import({FilmGenreDbStorage.class, StorageVersions.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class FilmGenreDbStorageTest {
 
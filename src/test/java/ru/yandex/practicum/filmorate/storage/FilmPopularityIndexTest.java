@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.popularity.FilmPopularityIndex;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmPopularityIndexTest {
+
+    private final FilmPopularityIndex index = new FilmPopularityIndex(null, null, null, true);
+
+    @Test
+    void getTopOrdersByLikesThenId() {
+        index.put(1, 0);
+        index.put(2, 3);
+        index.put(3, 3);
+        index.put(4, 1);
+
+        assertThat(index.getTop(3)).containsExactly(2, 3, 4);
+        assertThat(index.getTop(10)).containsExactly(2, 3, 4, 1);
+    }
+
+    @Test
+    void getTopDoesNotPreallocateRequestedCount() {
+        index.put(1, 2);
+        index.put(2, 1);
+
+        assertThat(index.getTop(Integer.MAX_VALUE)).containsExactly(1, 2);
+    }
+
+    @Test
+    void incrementAndDecrementMoveFilm() {
+        index.put(1, 1);
+        index.put(2, 1);
+
+        index.increment(2);
+        assertThat(index.getTop(2)).containsExactly(2, 1);
+
+        index.decrement(2);
+        index.decrement(2);
+        assertThat(index.getTop(2)).containsExactly(1, 2);
+    }
+
+    @Test
+    void filtersByGenreAndYearAfterAttributeChanges() {
+        index.put(1, 5);
+        index.setAttributes(1, LocalDate.of(2000, 1, 1), Set.of(genre(1)));
+        index.put(2, 3);
+        index.setAttributes(2, LocalDate.of(2000, 6, 1), Set.of(genre(1), genre(2)));
+        index.put(3, 4);
+        index.setAttributes(3, LocalDate.of(2001, 1, 1), Set.of(genre(2)));
+
+        assertThat(index.getTop(10, 1, null)).containsExactly(1, 2);
+        assertThat(index.getTop(10, null, 2000)).containsExactly(1, 2);
+        assertThat(index.getTop(10, 2, 2000)).containsExactly(2);
+
+        index.setAttributes(1, LocalDate.of(2001, 1, 1), Set.of(genre(2)));
+        index.increment(2);
+        index.increment(2);
+        index.increment(2);
+
+        assertThat(index.getTop(10, 1, null)).containsExactly(2);
+        assertThat(index.getTop(10, 2, null)).containsExactly(2, 1, 3);
+        assertThat(index.getTop(10, null, 2001)).containsExactly(1, 3);
+        assertThat(index.getTop(10, 3, null)).isEmpty();
+    }
+
+    private Genre genre(int id) {
+        Genre genre = new Genre();
+        genre.setId(id);
+        return genre;
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.search.FilmSearchIndex;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmSearchIndexTest {
+
+    private static final Set<FilmSearchIndex.Field> ALL = EnumSet.allOf(FilmSearchIndex.Field.class);
+
+    private final FilmSearchIndex index = new FilmSearchIndex(null);
+
+    @Test
+    void matchesCaseFoldedCyrillicWordsAndPrefixes() {
+        index.index(1, "Ёлки", "Новогодняя комедия");
+        index.index(2, "Иван Васильевич меняет профессию", "Комедия о машине времени");
+        index.index(3, "Терминатор", "Машина из будущего");
+
+        assertThat(index.search("елки", ALL)).containsOnlyKeys(1);
+        assertThat(index.search("КОМЕДИЯ", ALL)).containsOnlyKeys(1, 2);
+        assertThat(index.search("маш", ALL)).containsOnlyKeys(2, 3);
+        assertThat(index.search("комедия времени", ALL)).containsOnlyKeys(2);
+        assertThat(index.search("комедия", EnumSet.of(FilmSearchIndex.Field.TITLE))).isEmpty();
+    }
+
+    @Test
+    void onlyLastTokenMatchesAsPrefix() {
+        index.index(1, "Машина времени", "");
+        index.index(2, "Машинист", "времена года");
+
+        assertThat(index.search("машина вре", ALL)).containsOnlyKeys(1);
+        assertThat(index.search("маш времени", ALL)).isEmpty();
+    }
+
+    @Test
+    void ranksTitleAndExactMatchesHigher() {
+        index.index(1, "Машина", "");
+        index.index(2, "Машинист", "");
+        index.index(3, "Другое", "машина");
+
+        Map<Integer, Integer> scores = index.search("машина", ALL);
+
+        assertThat(scores.get(1)).isGreaterThan(scores.get(3));
+        assertThat(scores).doesNotContainKey(2);
+        assertThat(index.search("машин", ALL).get(1)).isEqualTo(index.search("машин", ALL).get(2));
+    }
+
+    @Test
+    void reindexingRemovesOldWords() {
+        index.index(1, "Старое название", null);
+        index.index(1, "Новое название", null);
+
+        assertThat(index.search("старое", ALL)).isEmpty();
+        assertThat(index.search("новое", ALL)).containsOnlyKeys(1);
+    }
+}
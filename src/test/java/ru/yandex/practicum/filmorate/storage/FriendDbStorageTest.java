@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.storage.friend.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
 import java.time.LocalDate;
 import java.util.Set;
@@ -16,7 +17,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Import(FriendDbStorage.class)
+@Import({FriendDbStorage.class, StorageVersions.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class FriendDbStorageTest {
 
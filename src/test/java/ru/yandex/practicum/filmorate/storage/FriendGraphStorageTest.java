@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.storage.friend.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.friend.FriendGraphStorage;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({FriendDbStorage.class, FriendGraphStorage.class, StorageVersions.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FriendGraphStorageTest {
+
+    private final FriendGraphStorage friendGraph;
+    private final StorageVersions versions;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void keepsSortedRowsAndMatchesDatabase() {
+        Integer first = insertUser("u1@ex.com", "login1");
+        Integer second = insertUser("u2@ex.com", "login2");
+        Integer third = insertUser("u3@ex.com", "login3");
+        Integer fourth = insertUser("u4@ex.com", "login4");
+
+        friendGraph.addFriend(first, fourth);
+        friendGraph.addFriend(first, second);
+        friendGraph.addFriend(first, third);
+        friendGraph.addFriend(second, third);
+        friendGraph.addFriend(second, fourth);
+        friendGraph.deleteFriend(first, third);
+
+        assertThat(friendGraph.friendIds(first)).containsExactly(second, fourth);
+        assertThat(friendGraph.getCommonFriendIds(first, second)).containsExactly(fourth);
+        assertThat(FriendGraphStorage.intersectionSize(friendGraph.friendIds(first), friendGraph.friendIds(second)))
+                .isEqualTo(1);
+
+        friendGraph.load();
+
+        assertThat(friendGraph.friendIds(first)).containsExactly(second, fourth);
+        assertThat(friendGraph.friendIds(second)).containsExactly(third, fourth);
+        assertThat(friendGraph.friendIds(fourth)).isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void deleteDuringAddIsAppliedInSameOrderAsDatabase() throws Exception {
+        String suffix = String.valueOf(System.nanoTime());
+        Integer userId = insertUser("c" + suffix + "@ex.com", "c" + suffix);
+        Integer friendId = insertUser("f" + suffix + "@ex.com", "f" + suffix);
+        CountDownLatch addWritten = new CountDownLatch(1);
+        FriendDbStorage slowStorage = new FriendDbStorage(jdbcTemplate, versions) {
+            @Override
+            public void addFriend(Integer userId, Integer friendId) {
+                super.addFriend(userId, friendId);
+                addWritten.countDown();
+                // окно между записью в БД и обновлением строки графа
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+            }
+        };
+        FriendGraphStorage graph = new FriendGraphStorage(slowStorage, versions);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> add = executor.submit(() -> graph.addFriend(userId, friendId));
+            addWritten.await();
+            Future<?> delete = executor.submit(() -> graph.deleteFriend(userId, friendId));
+            add.get();
+            delete.get();
+
+            assertThat(graph.getFriends(userId)).isEqualTo(slowStorage.getFriends(userId));
+        } finally {
+            executor.shutdownNow();
+            jdbcTemplate.update("DELETE FROM friends WHERE user_id = ?", userId);
+            jdbcTemplate.update("DELETE FROM users WHERE id IN (?, ?)", userId, friendId);
+        }
+    }
+
+    private Integer insertUser(String email, String login) {
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                email, login, login, LocalDate.of(1990, 1, 1));
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = ?", Integer.class, login);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.friend.FriendDbStorage;
+import ru.yandex.practicum.filmorate.storage.friend.FriendGraphStorage;
+import ru.yandex.practicum.filmorate.storage.friend.FriendRecommendations;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({FriendDbStorage.class, FriendGraphStorage.class, FriendRecommendations.class, StorageVersions.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FriendRecommendationsTest {
+
+    private final FriendGraphStorage friendGraph;
+    private final FriendRecommendations recommendations;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void ranksByMutualFriendsAndFollowsGraphChanges() {
+        Integer user = insertUser("u1@ex.com", "login1");
+        Integer friendA = insertUser("u2@ex.com", "login2");
+        Integer friendB = insertUser("u3@ex.com", "login3");
+        Integer popular = insertUser("u4@ex.com", "login4");
+        Integer single = insertUser("u5@ex.com", "login5");
+
+        friendGraph.addFriend(user, friendA);
+        friendGraph.addFriend(user, friendB);
+        friendGraph.addFriend(friendA, popular);
+        friendGraph.addFriend(friendB, popular);
+        friendGraph.addFriend(friendB, single);
+        friendGraph.addFriend(friendA, user);
+
+        assertThat(recommendations.recommend(user, 10)).containsExactly(popular, single);
+        assertThat(recommendations.recommend(user, 1)).containsExactly(popular);
+
+        friendGraph.addFriend(user, popular);
+
+        assertThat(recommendations.recommend(user, 10)).containsExactly(single);
+
+        friendGraph.deleteFriend(friendB, single);
+
+        assertThat(recommendations.recommend(user, 10)).isEmpty();
+    }
+
+    private Integer insertUser(String email, String login) {
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                email, login, login, LocalDate.of(1990, 1, 1));
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = ?", Integer.class, login);
+    }
+}
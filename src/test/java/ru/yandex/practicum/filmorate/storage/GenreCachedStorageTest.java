@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.genre.GenreCachedStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({GenreDbStorage.class, GenreCachedStorage.class, StorageVersions.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class GenreCachedStorageTest {
+
+    private final GenreCachedStorage genreStorage;
+    private final GenreDbStorage genreDbStorage;
+    private final StorageVersions versions;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findAllSortedById() {
+        assertThat(genreStorage.findAll())
+                .extracting(Genre::getId)
+                .containsExactly(1, 2, 3, 4, 5, 6);
+    }
+
+    @Test
+    void validateIds() {
+        genreStorage.validateIds(Set.of(1, 6));
+
+        assertThatThrownBy(() -> genreStorage.validateIds(Set.of(1, 999)))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void findByIdReloadsOnMiss() {
+        GenreCachedStorage storage = new GenreCachedStorage(genreDbStorage, versions, Duration.ZERO);
+        storage.refresh();
+        jdbcTemplate.update("INSERT INTO genres (id, name) VALUES (?, ?)", 7, "Фантастика");
+
+        Genre genre = storage.findById(7);
+
+        assertThat(genre.getName()).isEqualTo("Фантастика");
+    }
+
+    @Test
+    void missWithinReloadIntervalDoesNotReload() {
+        GenreCachedStorage storage = new GenreCachedStorage(genreDbStorage, versions, Duration.ofHours(1));
+        storage.refresh();
+        jdbcTemplate.update("INSERT INTO genres (id, name) VALUES (?, ?)", 7, "Фантастика");
+
+        assertThatThrownBy(() -> storage.findById(7))
+                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> storage.validateIds(Set.of(7)))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void reloadWithChangedRowsBumpsVersion() {
+        GenreCachedStorage storage = new GenreCachedStorage(genreDbStorage, versions, Duration.ZERO);
+        storage.refresh();
+        long before = versions.collection(StorageVersions.Scope.GENRES);
+
+        storage.refresh();
+        assertThat(versions.collection(StorageVersions.Scope.GENRES)).isEqualTo(before);
+
+        String name = storage.findById(1).getName();
+        jdbcTemplate.update("UPDATE genres SET name = ? WHERE id = ?", "Кинокомедия", 1);
+        try {
+            storage.refresh();
+        } finally {
+            jdbcTemplate.update("UPDATE genres SET name = ? WHERE id = ?", name, 1);
+        }
+
+        assertThat(versions.collection(StorageVersions.Scope.GENRES)).isGreaterThan(before);
+        assertThat(versions.entity(StorageVersions.Scope.GENRES, 1)).isGreaterThan(before);
+    }
+
+    @AfterTransaction
+    void resetCache() {
+        genreStorage.refresh();
+    }
+}
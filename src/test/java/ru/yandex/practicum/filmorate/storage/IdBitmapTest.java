@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.existence.IdBitmap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdBitmapTest {
+
+    private final IdBitmap bitmap = new IdBitmap();
+
+    @Test
+    void addAndContains() {
+        bitmap.add(1);
+        bitmap.add(100_000);
+
+        assertThat(bitmap.contains(1)).isTrue();
+        assertThat(bitmap.contains(100_000)).isTrue();
+        assertThat(bitmap.contains(2)).isFalse();
+        assertThat(bitmap.contains(null)).isFalse();
+        assertThat(bitmap.size()).isEqualTo(2);
+    }
+}
@@ -7,16 +7,19 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
 import ru.yandex.practicum.filmorate.storage.like.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Import(LikeDbStorage.class)
+@Import({LikeDbStorage.class, StorageVersions.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class LikeDbStorageTest {
 
@@ -40,6 +43,59 @@ class LikeDbStorageTest {
         assertThat(afterDelete).isEmpty();
     }
 
+    @Test
+    void likesCountFollowsAddAndDelete() {
+        ensureMpa(1, "G");
+        Integer userId = insertUser("u@ex.com", "login");
+        Integer otherId = insertUser("o@ex.com", "other");
+        Integer filmId = insertFilm("Film", 1);
+
+        assertThat(likeStorage.addLike(filmId, userId)).isTrue();
+        assertThat(likeStorage.addLike(filmId, userId)).isFalse();
+        likeStorage.addLike(filmId, otherId);
+        assertThat(likesCount(filmId)).isEqualTo(2);
+        assertThat(likeStorage.getLikesCounts()).containsEntry(filmId, 2);
+
+        assertThat(likeStorage.deleteLike(filmId, userId)).isTrue();
+        assertThat(likeStorage.deleteLike(filmId, userId)).isFalse();
+        assertThat(likesCount(filmId)).isEqualTo(1);
+    }
+
+    @Test
+    void recountLikesRepairsCounter() {
+        ensureMpa(1, "G");
+        Integer userId = insertUser("u@ex.com", "login");
+        Integer filmId = insertFilm("Film", 1);
+        jdbcTemplate.update("INSERT INTO likes (user_id, film_id) VALUES (?, ?)", userId, filmId);
+
+        int fixed = likeStorage.recountLikes();
+
+        assertThat(fixed).isEqualTo(1);
+        assertThat(likesCount(filmId)).isEqualTo(1);
+        assertThat(likeStorage.recountLikes()).isZero();
+    }
+
+    @Test
+    void addLikesInBatch() {
+        ensureMpa(1, "G");
+        Integer userId = insertUser("u@ex.com", "login");
+        Integer otherId = insertUser("o@ex.com", "other");
+        Integer filmId = insertFilm("Film", 1);
+        likeStorage.addLike(filmId, userId);
+
+        List<LikeBatchItem> added = likeStorage.addLikes(List.of(
+                new LikeBatchItem(filmId, userId),
+                new LikeBatchItem(filmId, otherId)));
+
+        assertThat(added).containsExactly(new LikeBatchItem(filmId, otherId));
+        assertThat(likeStorage.getLikes(filmId)).containsExactlyInAnyOrder(userId, otherId);
+        assertThat(likesCount(filmId)).isEqualTo(2);
+    }
+
+    private Integer likesCount(Integer filmId) {
+        return jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE id = ?", Integer.class, filmId);
+    }
+
     private Integer insertUser(String email, String login) {
         jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
                 email, login, login, LocalDate.of(1990, 1, 1));
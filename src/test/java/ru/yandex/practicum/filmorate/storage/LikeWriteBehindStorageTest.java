@@ -0,0 +1,168 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.LikeBatchItem;
+import ru.yandex.practicum.filmorate.storage.like.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikeWriteBehindStorage;
+import ru.yandex.practicum.filmorate.storage.like.LikesFlushedEvent;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({LikeDbStorage.class, LikeWriteBehindStorage.class, StorageVersions.class})
+@TestPropertySource(properties = {
+        "filmorate.likes.write-behind.enabled=true",
+        "filmorate.likes.write-behind.flush-interval=1h"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class LikeWriteBehindStorageTest {
+
+    private final LikeWriteBehindStorage likeStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final StorageVersions versions;
+    private final PlatformTransactionManager transactionManager;
+    private final DataSource dataSource;
+
+    @Test
+    void coalescesEventsUntilFlush() {
+        ensureMpa(1, "G");
+        Integer userId = insertUser("u@ex.com", "login");
+        Integer otherId = insertUser("o@ex.com", "other");
+        Integer filmId = insertFilm("Film", 1);
+
+        likeStorage.addLike(filmId, userId);
+        likeStorage.deleteLike(filmId, userId);
+        likeStorage.addLike(filmId, userId);
+        likeStorage.addLike(filmId, otherId);
+        likeStorage.deleteLike(filmId, otherId);
+
+        assertThat(likeStorage.getQueueDepth()).isEqualTo(2);
+        assertThat(likeStorage.getLikes(filmId)).isEmpty();
+
+        likeStorage.flush();
+
+        assertThat(likeStorage.getQueueDepth()).isZero();
+        assertThat(likeStorage.getLikes(filmId)).containsExactly(userId);
+        assertThat(jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE id = ?", Integer.class, filmId))
+                .isEqualTo(1);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void failedFlushRollsBackWholeBatch() {
+        ensureMpa(1, "G");
+        String suffix = String.valueOf(System.nanoTime());
+        Integer userId = insertUser("u" + suffix + "@ex.com", "u" + suffix);
+        Integer otherId = insertUser("o" + suffix + "@ex.com", "o" + suffix);
+        Integer filmId = insertFilm("Film " + suffix, 1);
+        AtomicBoolean failDeletes = new AtomicBoolean(true);
+        LikeDbStorage dbStorage = new LikeDbStorage(jdbcTemplate, versions) {
+            @Override
+            public List<LikeBatchItem> deleteLikes(List<LikeBatchItem> likes) {
+                if (failDeletes.get()) {
+                    throw new IllegalStateException("сбой удаления");
+                }
+                return super.deleteLikes(likes);
+            }
+        };
+        List<LikesFlushedEvent> events = new ArrayList<>();
+        LikeWriteBehindStorage storage = new LikeWriteBehindStorage(dbStorage,
+                event -> events.add((LikesFlushedEvent) event), transactionManager, dataSource,
+                true, 500, 10_000, Duration.ofHours(1));
+        try {
+            storage.addLike(filmId, userId);
+            storage.deleteLike(filmId, otherId);
+
+            assertThatThrownBy(storage::flush).isInstanceOf(IllegalStateException.class);
+            assertThat(storage.getLikes(filmId)).isEmpty();
+            assertThat(storage.getQueueDepth()).isEqualTo(2);
+
+            failDeletes.set(false);
+            storage.flush();
+
+            assertThat(storage.getLikes(filmId)).containsExactly(userId);
+            assertThat(events).singleElement()
+                    .satisfies(event -> assertThat(event.added()).containsExactly(new LikeBatchItem(filmId, userId)));
+        } finally {
+            jdbcTemplate.update("DELETE FROM likes WHERE film_id = ?", filmId);
+            jdbcTemplate.update("DELETE FROM films WHERE id = ?", filmId);
+            jdbcTemplate.update("DELETE FROM users WHERE id IN (?, ?)", userId, otherId);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void listenerFailureDoesNotRequeueWrittenBatch() {
+        ensureMpa(1, "G");
+        String suffix = String.valueOf(System.nanoTime());
+        Integer userId = insertUser("l" + suffix + "@ex.com", "l" + suffix);
+        Integer filmId = insertFilm("Film " + suffix, 1);
+        LikeWriteBehindStorage storage = new LikeWriteBehindStorage(new LikeDbStorage(jdbcTemplate, versions),
+                event -> {
+                    throw new IllegalStateException("сбой слушателя");
+                }, transactionManager, dataSource, true, 500, 10_000, Duration.ofHours(1));
+        try {
+            storage.addLike(filmId, userId);
+
+            storage.flush();
+
+            assertThat(storage.getQueueDepth()).isZero();
+            assertThat(storage.getLikes(filmId)).containsExactly(userId);
+        } finally {
+            jdbcTemplate.update("DELETE FROM likes WHERE film_id = ?", filmId);
+            jdbcTemplate.update("DELETE FROM films WHERE id = ?", filmId);
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        }
+    }
+
+    @Test
+    void refusesToStartWhenH2ClosesBeforeShutdownFlush() {
+        try (HikariDataSource fileDataSource = new HikariDataSource()) {
+            fileDataSource.setJdbcUrl("jdbc:h2:file:./db/filmorate;AUTO_SERVER=TRUE");
+            LikeWriteBehindStorage storage = new LikeWriteBehindStorage(new LikeDbStorage(jdbcTemplate, versions),
+                    event -> {
+                    }, transactionManager, fileDataSource, true, 500, 10_000, Duration.ofHours(1));
+
+            assertThatThrownBy(storage::start)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("DB_CLOSE_ON_EXIT=FALSE");
+        }
+    }
+
+    private Integer insertUser(String email, String login) {
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                email, login, login, LocalDate.of(1990, 1, 1));
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = ?", Integer.class, login);
+    }
+
+    private Integer insertFilm(String name, int mpaId) {
+        jdbcTemplate.update("INSERT INTO films (name, description, releaseDate, duration, mpa_id) VALUES (?, ?, ?, ?, ?)",
+                name, "desc", LocalDate.of(2000, 1, 1), 100, mpaId);
+        return jdbcTemplate.queryForObject("SELECT id FROM films WHERE name = ?", Integer.class, name);
+    }
+
+    private void ensureMpa(int id, String name) {
+        jdbcTemplate.update("MERGE INTO mpa (id, name) KEY(id) VALUES (?, ?)", id, name);
+    }
+}
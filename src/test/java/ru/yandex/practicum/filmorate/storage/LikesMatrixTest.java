@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.like.LikeDbStorage;
+import ru.yandex.practicum.filmorate.storage.recommendation.LikesMatrix;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({LikeDbStorage.class, LikesMatrix.class, StorageVersions.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class LikesMatrixTest {
+
+    private final LikesMatrix likesMatrix;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void recommendsFilmsOfMostSimilarUsers() {
+        Integer user = insertUser("u1@ex.com", "login1");
+        Integer similar = insertUser("u2@ex.com", "login2");
+        Integer other = insertUser("u3@ex.com", "login3");
+        Integer shared1 = insertFilm("Shared 1");
+        Integer shared2 = insertFilm("Shared 2");
+        Integer fromSimilar = insertFilm("From similar");
+        Integer fromOther = insertFilm("From other");
+        insertLike(user, shared1);
+        insertLike(user, shared2);
+        insertLike(similar, shared1);
+        insertLike(similar, shared2);
+        insertLike(similar, fromSimilar);
+        insertLike(other, shared1);
+        insertLike(other, fromOther);
+
+        likesMatrix.load();
+
+        assertThat(likesMatrix.recommend(user, 10)).containsExactly(fromSimilar, fromOther);
+        assertThat(likesMatrix.recommend(user, 1)).containsExactly(fromSimilar);
+
+        assertThat(likesMatrix.commonLikes(user, similar)).containsExactly(shared1, shared2);
+        assertThat(likesMatrix.commonLikes(user, other)).containsExactly(shared1);
+
+        likesMatrix.add(user, fromSimilar);
+        likesMatrix.remove(other, fromOther);
+
+        assertThat(likesMatrix.recommend(user, 10)).isEmpty();
+    }
+
+    private void insertLike(Integer userId, Integer filmId) {
+        jdbcTemplate.update("INSERT INTO likes (user_id, film_id) VALUES (?, ?)", userId, filmId);
+    }
+
+    private Integer insertUser(String email, String login) {
+        jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
+                email, login, login, LocalDate.of(1990, 1, 1));
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE login = ?", Integer.class, login);
+    }
+
+    private Integer insertFilm(String name) {
+        jdbcTemplate.update("INSERT INTO films (name, description, releaseDate, duration, mpa_id) VALUES (?, ?, ?, ?, ?)",
+                name, "desc", LocalDate.of(2000, 1, 1), 100, 1);
+        return jdbcTemplate.queryForObject("SELECT id FROM films WHERE name = ?", Integer.class, name);
+    }
+}
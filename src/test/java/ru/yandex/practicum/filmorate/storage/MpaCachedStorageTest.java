@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaCachedStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@Import({MpaDbStorage.class, MpaCachedStorage.class, StorageVersions.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class MpaCachedStorageTest {
+
+    private final MpaCachedStorage mpaStorage;
+
+    @Test
+    void findAllSortedById() {
+        assertThat(mpaStorage.findAll())
+                .extracting(Mpa::getId)
+                .containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void findById() {
+        assertThat(mpaStorage.findById(3).getName()).isEqualTo("PG-13");
+
+        assertThatThrownBy(() -> mpaStorage.findById(999))
+                .isInstanceOf(NotFoundException.class);
+    }
+}
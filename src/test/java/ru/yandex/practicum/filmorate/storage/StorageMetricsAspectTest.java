@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+@Import({MpaDbStorage.class, StorageMetricsAspect.class, SimpleMeterRegistry.class})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class StorageMetricsAspectTest {
+
+    private final MpaStorage mpaStorage;
+    private final MeterRegistry meterRegistry;
+
+    @Test
+    void recordsTimingsAndRowCounts() {
+        int ratings = mpaStorage.findAll().size();
+        assertThatThrownBy(() -> mpaStorage.findById(-1)).isInstanceOf(NotFoundException.class);
+
+        Timer findAll = meterRegistry.get("filmorate.storage.calls")
+                .tags("storage", "MpaDbStorage", "method", "findAll", "outcome", "success")
+                .timer();
+        Timer findByIdError = meterRegistry.get("filmorate.storage.calls")
+                .tags("storage", "MpaDbStorage", "method", "findById", "outcome", "error")
+                .timer();
+        DistributionSummary rows = meterRegistry.get("filmorate.storage.rows")
+                .tags("storage", "MpaDbStorage", "method", "findAll")
+                .summary();
+        assertThat(findAll.count()).isEqualTo(1);
+        assertThat(findByIdError.count()).isEqualTo(1);
+        assertThat(rows.totalAmount()).isEqualTo(ratings);
+    }
+}
@@ -9,15 +9,21 @@ import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.version.StorageVersions;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @JdbcTest
 @AutoConfigureTestDatabase
-@Import(UserDbStorage.class)
+@Import({UserDbStorage.class, StorageVersions.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class UserDbStorageTest {
 
@@ -72,6 +78,45 @@ class UserDbStorageTest {
         assertThat(users).hasSizeGreaterThanOrEqualTo(2);
     }
 
+    @Test
+    void findPage() {
+        Integer first = insertUser("u1@ex.com", "login1", "User1", LocalDate.of(1980, 1, 1));
+        Integer second = insertUser("u2@ex.com", "login2", "User2", LocalDate.of(1981, 2, 2));
+        Integer third = insertUser("u3@ex.com", "login3", "User3", LocalDate.of(1982, 3, 3));
+
+        Collection<User> page = userStorage.findPage(first, 1);
+        Collection<User> rest = userStorage.findPage(second, 10);
+
+        assertThat(page).extracting(User::getId).containsExactly(second);
+        assertThat(rest).extracting(User::getId).containsExactly(third);
+    }
+
+    @Test
+    void findAllInChunks() {
+        Integer first = insertUser("u1@ex.com", "login1", "User1", LocalDate.of(1980, 1, 1));
+        Integer second = insertUser("u2@ex.com", "login2", "User2", LocalDate.of(1981, 2, 2));
+        List<List<Integer>> chunks = new ArrayList<>();
+
+        userStorage.findAllInChunks(1, chunk -> chunks.add(chunk.stream().map(User::getId).toList()));
+
+        assertThat(chunks).containsExactly(List.of(first), List.of(second));
+    }
+
+    @Test
+    void findExistingIds() {
+        Integer id = insertUser("u1@ex.com", "login1", "User1", LocalDate.of(1980, 1, 1));
+
+        assertThat(userStorage.findExistingIds(List.of(id, id + 1000))).containsExactly(id);
+    }
+
+    @Test
+    void findByIdsSplitsLargeInputIntoChunks() {
+        Integer id = insertUser("u1@ex.com", "login1", "User1", LocalDate.of(1980, 1, 1));
+        Set<Integer> ids = IntStream.rangeClosed(id, id + 2500).boxed().collect(Collectors.toSet());
+
+        assertThat(userStorage.findByIds(ids)).extracting(User::getId).containsExactly(id);
+    }
+
     private Integer insertUser(String email, String login, String name, LocalDate birthday) {
         jdbcTemplate.update("INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)",
                 email, login, name, birthday);